@@ -2,11 +2,13 @@ package com.energy.loadbalancerservice.config;
 
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -19,8 +21,20 @@ public class RabbitMQConfig {
 
     public static final String INGEST_QUEUE_PREFIX = "ingest_queue_";
 
-    @Value("${loadbalancer.replica.count:3}")
-    private int replicaCount;
+    public static final String REPLICA_HEARTBEAT_EXCHANGE = "monitoring_replica_heartbeat_exchange";
+    public static final String REPLICA_HEARTBEAT_PREFIX = "loadbalancer_replica_heartbeat_";
+
+    public static final String DRAIN_ACK_PREFIX = "loadbalancer_drain_ack_";
+    public static final String DRAIN_TOKEN_HEADER = "x-drain-token";
+    public static final String DRAIN_REPLY_TO_HEADER = "x-drain-reply-to";
+    public static final String DRAIN_DEVICES_HEADER = "x-drain-devices";
+    public static final String MEASUREMENT_ENVELOPE_HEADER = "x-measurement-envelope";
+
+    @Value("${loadbalancer.forward.batch-size:500}")
+    private int forwardBatchSize;
+
+    @Value("${loadbalancer.forward.flush-interval-ms:100}")
+    private long forwardFlushIntervalMs;
 
     @Bean
     public Queue centralQueue() {
@@ -40,18 +54,39 @@ public class RabbitMQConfig {
     }
 
     @Bean
-    public Queue ingestQueue1() {
-        return new Queue(INGEST_QUEUE_PREFIX + "1", true);
+    public SimpleRabbitListenerContainerFactory centralBatchContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(forwardBatchSize);
+        factory.setBatchReceiveTimeout(forwardFlushIntervalMs);
+        factory.setPrefetchCount(Math.max(forwardBatchSize * 2, 250));
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        return factory;
+    }
+
+    @Bean
+    public FanoutExchange replicaHeartbeatExchange() {
+        return new FanoutExchange(REPLICA_HEARTBEAT_EXCHANGE, true, false);
+    }
+
+    @Bean
+    public Queue replicaHeartbeatQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy(REPLICA_HEARTBEAT_PREFIX));
     }
 
     @Bean
-    public Queue ingestQueue2() {
-        return new Queue(INGEST_QUEUE_PREFIX + "2", true);
+    public Binding replicaHeartbeatBinding() {
+        return BindingBuilder.bind(replicaHeartbeatQueue())
+                .to(replicaHeartbeatExchange());
     }
 
     @Bean
-    public Queue ingestQueue3() {
-        return new Queue(INGEST_QUEUE_PREFIX + "3", true);
+    public Queue drainAckQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy(DRAIN_ACK_PREFIX));
     }
 
     @Bean
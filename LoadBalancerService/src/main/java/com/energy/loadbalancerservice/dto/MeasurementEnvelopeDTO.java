@@ -0,0 +1,93 @@
+package com.energy.loadbalancerservice.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class MeasurementEnvelopeDTO {
+
+    private List<UUID> devices;
+    private int[] deviceIndexes;
+    private List<Long> timestamps;
+    private List<Double> values;
+
+    public MeasurementEnvelopeDTO() {
+    }
+
+    public static MeasurementEnvelopeDTO of(List<SensorDataDTO> readings) {
+        Map<UUID, Integer> dictionary = new HashMap<>();
+        MeasurementEnvelopeDTO envelope = new MeasurementEnvelopeDTO();
+        envelope.devices = new ArrayList<>();
+        envelope.deviceIndexes = new int[readings.size()];
+        envelope.timestamps = new ArrayList<>(readings.size());
+        envelope.values = new ArrayList<>(readings.size());
+
+        for (int i = 0; i < readings.size(); i++) {
+            SensorDataDTO reading = readings.get(i);
+            envelope.deviceIndexes[i] = dictionary.computeIfAbsent(reading.getDeviceId(), deviceId -> {
+                envelope.devices.add(deviceId);
+                return envelope.devices.size() - 1;
+            });
+            envelope.timestamps.add(reading.getTimestamp() != null ? toMicros(reading.getTimestamp()) : null);
+            envelope.values.add(reading.getMeasurementValue());
+        }
+        return envelope;
+    }
+
+    public List<SensorDataDTO> toSensorData() {
+        List<SensorDataDTO> readings = new ArrayList<>(deviceIndexes.length);
+        for (int i = 0; i < deviceIndexes.length; i++) {
+            Long timestamp = timestamps.get(i);
+            readings.add(new SensorDataDTO(
+                    devices.get(deviceIndexes[i]),
+                    timestamp != null ? fromMicros(timestamp) : null,
+                    values.get(i)));
+        }
+        return readings;
+    }
+
+    private static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    public List<UUID> getDevices() {
+        return devices;
+    }
+
+    public void setDevices(List<UUID> devices) {
+        this.devices = devices;
+    }
+
+    public int[] getDeviceIndexes() {
+        return deviceIndexes;
+    }
+
+    public void setDeviceIndexes(int[] deviceIndexes) {
+        this.deviceIndexes = deviceIndexes;
+    }
+
+    public List<Long> getTimestamps() {
+        return timestamps;
+    }
+
+    public void setTimestamps(List<Long> timestamps) {
+        this.timestamps = timestamps;
+    }
+
+    public List<Double> getValues() {
+        return values;
+    }
+
+    public void setValues(List<Double> values) {
+        this.values = values;
+    }
+}
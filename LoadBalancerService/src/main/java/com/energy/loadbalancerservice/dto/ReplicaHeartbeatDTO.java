@@ -0,0 +1,75 @@
+package com.energy.loadbalancerservice.dto;
+
+public class ReplicaHeartbeatDTO {
+
+    public static final String STATUS_UP = "UP";
+    public static final String STATUS_LEAVING = "LEAVING";
+
+    private int replicaId;
+    private String instanceId;
+    private String ingestQueue;
+    private String status;
+    private long sentAt;
+
+    public ReplicaHeartbeatDTO() {
+    }
+
+    public ReplicaHeartbeatDTO(int replicaId, String instanceId, String ingestQueue, String status, long sentAt) {
+        this.replicaId = replicaId;
+        this.instanceId = instanceId;
+        this.ingestQueue = ingestQueue;
+        this.status = status;
+        this.sentAt = sentAt;
+    }
+
+    public int getReplicaId() {
+        return replicaId;
+    }
+
+    public void setReplicaId(int replicaId) {
+        this.replicaId = replicaId;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public String getIngestQueue() {
+        return ingestQueue;
+    }
+
+    public void setIngestQueue(String ingestQueue) {
+        this.ingestQueue = ingestQueue;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(long sentAt) {
+        this.sentAt = sentAt;
+    }
+
+    @Override
+    public String toString() {
+        return "ReplicaHeartbeatDTO{" +
+                "replicaId=" + replicaId +
+                ", instanceId='" + instanceId + '\'' +
+                ", ingestQueue='" + ingestQueue + '\'' +
+                ", status='" + status + '\'' +
+                ", sentAt=" + sentAt +
+                '}';
+    }
+}
@@ -0,0 +1,143 @@
+package com.energy.loadbalancerservice.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+
+public final class ConsistentHashRing {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final List<Integer> members;
+    private final int virtualNodes;
+    private final long[] points;
+    private final int[] owners;
+
+    private ConsistentHashRing(List<Integer> members, int virtualNodes, long[] points, int[] owners) {
+        this.members = members;
+        this.virtualNodes = virtualNodes;
+        this.points = points;
+        this.owners = owners;
+    }
+
+    public static ConsistentHashRing of(Collection<Integer> members, int virtualNodes) {
+        List<Integer> sortedMembers = List.copyOf(new TreeSet<>(members));
+        int size = sortedMembers.size() * virtualNodes;
+
+        long[][] entries = new long[size][];
+        int i = 0;
+        for (int member : sortedMembers) {
+            for (int vnode = 0; vnode < virtualNodes; vnode++) {
+                entries[i++] = new long[]{murmur3(member, vnode), member};
+            }
+        }
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        long[] points = new long[size];
+        int[] owners = new int[size];
+        for (i = 0; i < size; i++) {
+            points[i] = entries[i][0];
+            owners[i] = (int) entries[i][1];
+        }
+        return new ConsistentHashRing(sortedMembers, virtualNodes, points, owners);
+    }
+
+    public int ownerOf(UUID key) {
+        return ownerOf(hash(key));
+    }
+
+    public int ownerOf(long hash) {
+        if (points.length == 0) {
+            throw new IllegalStateException("Hash ring has no members");
+        }
+        return owners[positionOf(hash)];
+    }
+
+    public List<Integer> preferenceList(UUID key, int count) {
+        List<Integer> preferred = new ArrayList<>(Math.min(count, members.size()));
+        if (points.length == 0) {
+            return preferred;
+        }
+
+        int position = positionOf(hash(key));
+        for (int step = 0; step < points.length && preferred.size() < count; step++) {
+            int owner = owners[(position + step) % points.length];
+            if (!preferred.contains(owner)) {
+                preferred.add(owner);
+            }
+        }
+        return preferred;
+    }
+
+    public List<Integer> members() {
+        return members;
+    }
+
+    public int virtualNodes() {
+        return virtualNodes;
+    }
+
+    public boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    public static long hash(UUID key) {
+        return murmur3(key.getMostSignificantBits(), key.getLeastSignificantBits());
+    }
+
+    public static double unitHash(UUID key, int salt) {
+        long hash = murmur3(key.getMostSignificantBits() ^ (salt * C1), key.getLeastSignificantBits() ^ (salt * C2));
+        return (hash >>> 11) * 0x1.0p-53;
+    }
+
+    private int positionOf(long hash) {
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index == points.length ? 0 : index;
+    }
+
+    private static long murmur3(long k1, long k2) {
+        long h1 = 0;
+        long h2 = 0;
+
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        h1 ^= k1;
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        h2 ^= k2;
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+
+        h1 ^= 16;
+        h2 ^= 16;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        return h1;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
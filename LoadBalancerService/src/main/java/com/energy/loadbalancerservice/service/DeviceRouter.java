@@ -0,0 +1,422 @@
+package com.energy.loadbalancerservice.service;
+
+import com.energy.loadbalancerservice.config.RabbitMQConfig;
+import com.energy.loadbalancerservice.dto.DrainAckDTO;
+import com.energy.loadbalancerservice.dto.MeasurementEnvelopeDTO;
+import com.energy.loadbalancerservice.dto.SensorDataDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@Component
+public class DeviceRouter {
+
+    public static final int HELD = -1;
+    public static final int UNROUTABLE = -2;
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceRouter.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ReplicaMembership membership;
+    private final ReplicaLoadMonitor loadMonitor;
+    private final Queue drainAckQueue;
+
+    private final Map<UUID, Assignment> assignments = new HashMap<>();
+    private final Map<Integer, DrainMarker> pendingMarkers = new HashMap<>();
+    private final Set<Integer> evacuating = new HashSet<>();
+    private final Map<Integer, Outgoing> outbox = new LinkedHashMap<>();
+    private long sendSequence;
+    private long markerTokens;
+    private int heldCount;
+
+    @Value("${loadbalancer.load.drain-timeout-ms:30000}")
+    private long drainTimeoutMs;
+
+    @Value("${loadbalancer.load.max-held:500}")
+    private int maxHeld;
+
+    @Value("${loadbalancer.load.idle-device-ms:600000}")
+    private long idleDeviceMs;
+
+    @Value("${loadbalancer.forward.max-envelope-size:500}")
+    private int maxEnvelopeSize;
+
+    @Value("${loadbalancer.forward.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    @Autowired
+    public DeviceRouter(RabbitTemplate rabbitTemplate,
+                        ReplicaMembership membership,
+                        ReplicaLoadMonitor loadMonitor,
+                        @Qualifier("drainAckQueue") Queue drainAckQueue) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.membership = membership;
+        this.loadMonitor = loadMonitor;
+        this.drainAckQueue = drainAckQueue;
+    }
+
+    public synchronized int dispatch(SensorDataDTO sensorData, Runnable ack) {
+        UUID deviceId = sensorData.getDeviceId();
+        int target = selectTarget(deviceId);
+        if (target == UNROUTABLE) {
+            return UNROUTABLE;
+        }
+
+        Assignment assignment = assignments.get(deviceId);
+        if (assignment == null) {
+            assignment = new Assignment(deviceId, target);
+            assignments.put(deviceId, assignment);
+        }
+        assignment.lastSeen = System.currentTimeMillis();
+
+        if (assignment.isDraining()) {
+            hold(assignment, sensorData, ack);
+            if (target == assignment.replicaId) {
+                log.debug("Device {} returned to replica {} before its drain finished", deviceId, target);
+                assignment.drainingTo = target;
+                complete(assignment);
+                return target;
+            }
+            assignment.drainingTo = target;
+            enforceHoldLimit();
+            return HELD;
+        }
+
+        if (assignment.replicaId == target) {
+            send(assignment, target, sensorData, ack);
+            return target;
+        }
+
+        log.debug("Moving device {} from replica {} to replica {}, holding until the old queue drains",
+                deviceId, assignment.replicaId, target);
+        assignment.drainingTo = target;
+        hold(assignment, sensorData, ack);
+        requestDrain(assignment.replicaId);
+        enforceHoldLimit();
+        return HELD;
+    }
+
+    public synchronized int redispatch(int fromReplicaId, SensorDataDTO sensorData) {
+        Assignment assignment = assignments.get(sensorData.getDeviceId());
+        if (assignment == null) {
+            return routable(dispatch(sensorData, null), sensorData);
+        }
+
+        if (assignment.replicaId == fromReplicaId) {
+            if (!assignment.isDraining()) {
+                assignment.drainingTo = routable(selectTarget(sensorData.getDeviceId()), sensorData);
+            }
+            send(assignment, assignment.drainingTo, sensorData, null);
+            return assignment.drainingTo;
+        }
+
+        int target = assignment.isDraining() ? assignment.drainingTo : assignment.replicaId;
+        send(assignment, target, sensorData, null);
+        return target;
+    }
+
+    public synchronized void flush() {
+        if (outbox.isEmpty()) {
+            return;
+        }
+        publishConfirmed(outbox);
+        List<Outgoing> published = new ArrayList<>(outbox.values());
+        outbox.clear();
+        published.forEach(Outgoing::acknowledge);
+    }
+
+    public synchronized void beginEvacuation(int replicaId) {
+        evacuating.add(replicaId);
+        pendingMarkers.remove(replicaId);
+    }
+
+    public synchronized void finishEvacuation(int replicaId) {
+        if (evacuating.remove(replicaId)) {
+            release(replicaId, Long.MAX_VALUE, false);
+        }
+    }
+
+    @RabbitListener(queues = "#{drainAckQueue.name}")
+    public synchronized void handleDrainAck(DrainAckDTO ack) {
+        DrainMarker marker = pendingMarkers.get(ack.getReplicaId());
+        if (marker == null || marker.token != ack.getToken()) {
+            return;
+        }
+        pendingMarkers.remove(ack.getReplicaId());
+        log.debug("Replica {} drained up to marker {}", ack.getReplicaId(), ack.getToken());
+        release(ack.getReplicaId(), marker.coveredSequence, true);
+        flush();
+    }
+
+    @Scheduled(fixedDelayString = "${loadbalancer.load.sample-interval-ms:1000}")
+    public synchronized void checkDrains() {
+        long now = System.currentTimeMillis();
+
+        Iterator<Map.Entry<Integer, DrainMarker>> markers = pendingMarkers.entrySet().iterator();
+        while (markers.hasNext()) {
+            Map.Entry<Integer, DrainMarker> entry = markers.next();
+            if (now - entry.getValue().sentAt > drainTimeoutMs) {
+                markers.remove();
+                forceRelease(entry.getKey(), "drain marker " + entry.getValue().token
+                        + " not acknowledged within " + drainTimeoutMs + " ms");
+            }
+        }
+
+        Set<Integer> stalled = new HashSet<>();
+        Iterator<Assignment> iterator = assignments.values().iterator();
+        while (iterator.hasNext()) {
+            Assignment assignment = iterator.next();
+            if (assignment.isDraining()) {
+                if (!pendingMarkers.containsKey(assignment.replicaId)) {
+                    stalled.add(assignment.replicaId);
+                }
+            } else if (now - assignment.lastSeen > idleDeviceMs) {
+                iterator.remove();
+            }
+        }
+        stalled.forEach(this::requestDrain);
+        flush();
+    }
+
+    private int selectTarget(UUID deviceId) {
+        ConsistentHashRing ring = membership.ring();
+        List<Integer> preferred = ring.preferenceList(deviceId, ring.members().size());
+        if (preferred.isEmpty()) {
+            return UNROUTABLE;
+        }
+        for (int replicaId : preferred) {
+            if (ConsistentHashRing.unitHash(deviceId, replicaId) >= loadMonitor.spillFraction(replicaId)) {
+                return replicaId;
+            }
+        }
+        return preferred.get(0);
+    }
+
+    private static int routable(int target, SensorDataDTO sensorData) {
+        if (target == UNROUTABLE) {
+            throw new IllegalStateException("No replica to re-dispatch device " + sensorData.getDeviceId() + " to");
+        }
+        return target;
+    }
+
+    private void send(Assignment assignment, int replicaId, SensorDataDTO sensorData, Runnable ack) {
+        outbox.computeIfAbsent(replicaId, id -> new Outgoing()).add(sensorData, ack);
+        assignment.lastSentSequence = ++sendSequence;
+    }
+
+    private void hold(Assignment assignment, SensorDataDTO sensorData, Runnable ack) {
+        assignment.held.add(new Held(sensorData, ack));
+        heldCount++;
+    }
+
+    private void enforceHoldLimit() {
+        while (heldCount > maxHeld) {
+            Map<Integer, Integer> heldByReplica = new HashMap<>();
+            for (Assignment assignment : assignments.values()) {
+                if (assignment.isDraining() && !assignment.held.isEmpty()) {
+                    heldByReplica.merge(assignment.replicaId, assignment.held.size(), Integer::sum);
+                }
+            }
+            if (heldByReplica.isEmpty()) {
+                return;
+            }
+            int replicaId = Collections.max(heldByReplica.entrySet(), Map.Entry.comparingByValue()).getKey();
+            pendingMarkers.remove(replicaId);
+            forceRelease(replicaId, heldCount + " measurements held, limit " + maxHeld);
+        }
+    }
+
+    private void forceRelease(int replicaId, String reason) {
+        List<Assignment> leaving = leaving(replicaId);
+        int readings = leaving.stream().mapToInt(assignment -> assignment.held.size()).sum();
+        log.warn("Releasing {} held measurements of {} devices moving off replica {} before it drained ({}); "
+                        + "they may be processed ahead of older measurements still queued there",
+                readings, leaving.size(), replicaId, reason);
+        try {
+            sendMarker(replicaId, ++markerTokens, leaving, false);
+        } catch (Exception e) {
+            log.warn("Could not tell replica {} that {} devices moved off it: {}",
+                    replicaId, leaving.size(), e.getMessage());
+        }
+        release(replicaId, Long.MAX_VALUE, false);
+    }
+
+    private void publishConfirmed(Map<Integer, Outgoing> pending) {
+        rabbitTemplate.invoke(operations -> {
+            pending.forEach((replicaId, outgoing) -> publish(operations, replicaId, outgoing.readings));
+            operations.waitForConfirmsOrDie(confirmTimeoutMs);
+            return null;
+        });
+    }
+
+    private void publish(RabbitOperations operations, int replicaId, List<SensorDataDTO> readings) {
+        String ingestQueue = membership.ingestQueueOf(replicaId);
+        for (int from = 0; from < readings.size(); from += maxEnvelopeSize) {
+            List<SensorDataDTO> chunk = readings.subList(from, Math.min(from + maxEnvelopeSize, readings.size()));
+            operations.convertAndSend(ingestQueue, MeasurementEnvelopeDTO.of(chunk), message -> {
+                message.getMessageProperties().setHeader(RabbitMQConfig.MEASUREMENT_ENVELOPE_HEADER, 1);
+                return message;
+            });
+        }
+    }
+
+    private void requestDrain(int replicaId) {
+        if (pendingMarkers.containsKey(replicaId) || evacuating.contains(replicaId)) {
+            return;
+        }
+
+        long token = ++markerTokens;
+        try {
+            Outgoing pending = outbox.get(replicaId);
+            if (pending != null) {
+                publishConfirmed(Map.of(replicaId, pending));
+                outbox.remove(replicaId);
+                pending.acknowledge();
+            }
+            List<Assignment> leaving = leaving(replicaId);
+            sendMarker(replicaId, token, leaving, true);
+            leaving.forEach(assignment -> assignment.announcedBy = token);
+            pendingMarkers.put(replicaId, new DrainMarker(token, sendSequence, System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.warn("Could not send drain marker to replica {}: {}", replicaId, e.getMessage());
+        }
+    }
+
+    private void sendMarker(int replicaId, long token, List<Assignment> leaving, boolean awaitAck) {
+        List<String> devices = leaving.stream().map(assignment -> assignment.deviceId.toString()).toList();
+        rabbitTemplate.convertAndSend(membership.ingestQueueOf(replicaId), new SensorDataDTO(), message -> {
+            message.getMessageProperties().setHeader(RabbitMQConfig.DRAIN_TOKEN_HEADER, token);
+            message.getMessageProperties().setHeader(RabbitMQConfig.DRAIN_DEVICES_HEADER, devices);
+            if (awaitAck) {
+                message.getMessageProperties().setHeader(RabbitMQConfig.DRAIN_REPLY_TO_HEADER, drainAckQueue.getName());
+            }
+            return message;
+        });
+    }
+
+    private List<Assignment> leaving(int replicaId) {
+        List<Assignment> leaving = new ArrayList<>();
+        for (Assignment assignment : assignments.values()) {
+            if (assignment.isDraining() && assignment.replicaId == replicaId) {
+                leaving.add(assignment);
+            }
+        }
+        return leaving;
+    }
+
+    private void release(int replicaId, long coveredSequence, boolean requireAnnounced) {
+        boolean remaining = false;
+        for (Assignment assignment : assignments.values()) {
+            if (!assignment.isDraining() || assignment.replicaId != replicaId) {
+                continue;
+            }
+            if (assignment.lastSentSequence > coveredSequence || (requireAnnounced && assignment.announcedBy == 0)) {
+                remaining = true;
+                continue;
+            }
+            try {
+                complete(assignment);
+            } catch (Exception e) {
+                log.error("Could not forward held measurements to replica {}: {}",
+                        assignment.drainingTo, e.getMessage());
+            }
+        }
+        if (remaining) {
+            requestDrain(replicaId);
+        }
+    }
+
+    private void complete(Assignment assignment) {
+        int target = assignment.drainingTo;
+        while (!assignment.held.isEmpty()) {
+            Held held = assignment.held.poll();
+            send(assignment, target, held.sensorData, held.ack);
+            heldCount--;
+        }
+        assignment.replicaId = target;
+        assignment.drainingTo = 0;
+        assignment.announcedBy = 0;
+    }
+
+    private static final class Assignment {
+
+        private final UUID deviceId;
+        private int replicaId;
+        private int drainingTo;
+        private long announcedBy;
+        private long lastSentSequence;
+        private long lastSeen;
+        private final Deque<Held> held = new ArrayDeque<>();
+
+        Assignment(UUID deviceId, int replicaId) {
+            this.deviceId = deviceId;
+            this.replicaId = replicaId;
+        }
+
+        boolean isDraining() {
+            return drainingTo != 0;
+        }
+    }
+
+    private static final class Held {
+
+        private final SensorDataDTO sensorData;
+        private final Runnable ack;
+
+        Held(SensorDataDTO sensorData, Runnable ack) {
+            this.sensorData = sensorData;
+            this.ack = ack;
+        }
+    }
+
+    private static final class Outgoing {
+
+        private final List<SensorDataDTO> readings = new ArrayList<>();
+        private final List<Runnable> acks = new ArrayList<>();
+
+        void add(SensorDataDTO sensorData, Runnable ack) {
+            readings.add(sensorData);
+            if (ack != null) {
+                acks.add(ack);
+            }
+        }
+
+        void acknowledge() {
+            acks.forEach(Runnable::run);
+        }
+    }
+
+    private static final class DrainMarker {
+
+        private final long token;
+        private final long coveredSequence;
+        private final long sentAt;
+
+        DrainMarker(long token, long coveredSequence, long sentAt) {
+            this.token = token;
+            this.coveredSequence = coveredSequence;
+            this.sentAt = sentAt;
+        }
+    }
+}
@@ -2,71 +2,130 @@ package com.energy.loadbalancerservice.service;
 
 import com.energy.loadbalancerservice.config.RabbitMQConfig;
 import com.energy.loadbalancerservice.dto.SensorDataDTO;
+import com.rabbitmq.client.Channel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.UUID;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 @Service
 public class LoadBalancerService {
 
     private static final Logger log = LoggerFactory.getLogger(LoadBalancerService.class);
 
-    private final RabbitTemplate rabbitTemplate;
-
-    @Value("${loadbalancer.replica.count:3}")
-    private int replicaCount;
+    private final DeviceRouter router;
+    private final MessageConverter messageConverter;
 
     private long messagesProcessed = 0;
-    private long[] replicaMessageCounts;
+    private final Map<Integer, AtomicLong> replicaMessageCounts = new ConcurrentSkipListMap<>();
 
     @Autowired
-    public LoadBalancerService(RabbitTemplate rabbitTemplate) {
-        this.rabbitTemplate = rabbitTemplate;
-        this.replicaMessageCounts = new long[]{0, 0, 0};
+    public LoadBalancerService(DeviceRouter router, MessageConverter messageConverter) {
+        this.router = router;
+        this.messageConverter = messageConverter;
     }
 
-    @RabbitListener(queues = RabbitMQConfig.CENTRAL_QUEUE)
-    public void consumeDeviceData(SensorDataDTO sensorData) {
-        messagesProcessed++;
-
-        log.debug("Received message #{}: deviceId={}, timestamp={}, value={}",
-                messagesProcessed,
-                sensorData.getDeviceId(),
-                sensorData.getTimestamp(),
-                sensorData.getMeasurementValue());
-
-        int replicaIndex = selectReplica(sensorData.getDeviceId());
-
-        String ingestQueue = RabbitMQConfig.INGEST_QUEUE_PREFIX + (replicaIndex + 1);
-        rabbitTemplate.convertAndSend(ingestQueue, sensorData);
-
-        replicaMessageCounts[replicaIndex]++;
-
-        log.info("Message #{} from device {} → {} (Replica {}). Distribution: [R1:{}, R2:{}, R3:{}]",
-                messagesProcessed,
-                sensorData.getDeviceId(),
-                ingestQueue,
-                replicaIndex + 1,
-                replicaMessageCounts[0],
-                replicaMessageCounts[1],
-                replicaMessageCounts[2]);
+    @RabbitListener(queues = RabbitMQConfig.CENTRAL_QUEUE, containerFactory = "centralBatchContainerFactory")
+    public void consumeDeviceData(List<Message> batch, Channel channel) {
+        int held = 0;
+        int dropped = 0;
+        int requeued = 0;
+        for (Message message : batch) {
+            messagesProcessed++;
+            long deliveryTag = message.getMessageProperties().getDeliveryTag();
+
+            SensorDataDTO sensorData;
+            try {
+                message.getMessageProperties().setInferredArgumentType(SensorDataDTO.class);
+                sensorData = (SensorDataDTO) messageConverter.fromMessage(message);
+            } catch (RuntimeException e) {
+                log.warn("Rejecting unreadable message #{}: {}", messagesProcessed, e.getMessage());
+                reject(channel, deliveryTag);
+                dropped++;
+                continue;
+            }
+
+            log.debug("Received message #{}: deviceId={}, timestamp={}, value={}",
+                    messagesProcessed,
+                    sensorData.getDeviceId(),
+                    sensorData.getTimestamp(),
+                    sensorData.getMeasurementValue());
+
+            if (sensorData.getDeviceId() == null) {
+                log.warn("Dropping message #{} without a device id: {}", messagesProcessed, sensorData);
+                ack(channel, deliveryTag);
+                dropped++;
+                continue;
+            }
+
+            int replicaId = router.dispatch(sensorData, () -> ack(channel, deliveryTag));
+            if (replicaId == DeviceRouter.UNROUTABLE) {
+                log.warn("No replica on the ingest ring, requeueing message #{}", messagesProcessed);
+                requeue(channel, deliveryTag);
+                requeued++;
+                continue;
+            }
+            if (replicaId == DeviceRouter.HELD) {
+                held++;
+                continue;
+            }
+
+            replicaMessageCounts.computeIfAbsent(replicaId, id -> new AtomicLong()).incrementAndGet();
+            log.debug("Message #{} from device {} → {}{} (Replica {})",
+                    messagesProcessed,
+                    sensorData.getDeviceId(),
+                    RabbitMQConfig.INGEST_QUEUE_PREFIX,
+                    replicaId,
+                    replicaId);
+        }
+
+        router.flush();
+
+        log.info("Forwarded batch of {} messages ({} held until their previous replica drains, {} dropped, {} requeued). Distribution: [{}]",
+                batch.size(),
+                held,
+                dropped,
+                requeued,
+                replicaMessageCounts.entrySet().stream()
+                        .map(entry -> "R" + entry.getKey() + ":" + entry.getValue())
+                        .collect(Collectors.joining(", ")));
     }
 
-    private int selectReplica(UUID deviceId) {
-        int hash = deviceId.hashCode();
-
-        int positiveHash = hash & Integer.MAX_VALUE;
+    private void requeue(Channel channel, long deliveryTag) {
+        try {
+            channel.basicNack(deliveryTag, false, true);
+        } catch (IOException e) {
+            log.warn("Could not requeue delivery {}: {}", deliveryTag, e.getMessage());
+        }
+    }
 
-        int replicaIndex = positiveHash % replicaCount;
-        log.debug("Consistent hashing: deviceId={} → hash={} → replica={}",
-                deviceId, hash, replicaIndex);
+    private void reject(Channel channel, long deliveryTag) {
+        try {
+            channel.basicReject(deliveryTag, false);
+        } catch (IOException e) {
+            log.warn("Could not reject delivery {}: {}", deliveryTag, e.getMessage());
+        }
+    }
 
-        return replicaIndex;
+    private void ack(Channel channel, long deliveryTag) {
+        if (!channel.isOpen()) {
+            log.debug("Consumer channel closed before delivery {} was forwarded, the broker will redeliver it", deliveryTag);
+            return;
+        }
+        try {
+            channel.basicAck(deliveryTag, false);
+        } catch (IOException e) {
+            log.warn("Could not acknowledge delivery {}: {}", deliveryTag, e.getMessage());
+        }
     }
 }
@@ -0,0 +1,203 @@
+package com.energy.loadbalancerservice.service;
+
+import com.energy.loadbalancerservice.config.RabbitMQConfig;
+import com.energy.loadbalancerservice.dto.MeasurementEnvelopeDTO;
+import com.energy.loadbalancerservice.dto.SensorDataDTO;
+import com.rabbitmq.client.GetResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Component
+public class ReplicaFailover {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaFailover.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final AmqpAdmin amqpAdmin;
+    private final ReplicaMembership membership;
+    private final ReplicaLoadMonitor loadMonitor;
+    private final DeviceRouter router;
+    private final MessagePropertiesConverter propertiesConverter = new DefaultMessagePropertiesConverter();
+
+    private final Map<Integer, Long> noConsumerSince = new HashMap<>();
+    private final Map<Integer, Long> evacuating = new HashMap<>();
+    private Set<Integer> previouslyLive;
+
+    @Value("${loadbalancer.failover.no-consumer-grace-ms:3000}")
+    private long noConsumerGraceMs;
+
+    @Value("${loadbalancer.failover.redispatch-batch:5000}")
+    private int redispatchBatch;
+
+    @Autowired
+    public ReplicaFailover(RabbitTemplate rabbitTemplate,
+                           AmqpAdmin amqpAdmin,
+                           ReplicaMembership membership,
+                           ReplicaLoadMonitor loadMonitor,
+                           DeviceRouter router) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.amqpAdmin = amqpAdmin;
+        this.membership = membership;
+        this.loadMonitor = loadMonitor;
+        this.router = router;
+    }
+
+    @Scheduled(fixedDelayString = "${loadbalancer.failover.check-interval-ms:1000}")
+    public void checkReplicas() {
+        detectMissingConsumers();
+
+        Set<Integer> live = membership.liveMembers();
+        if (previouslyLive != null && !live.isEmpty()) {
+            for (int replicaId : previouslyLive) {
+                if (!live.contains(replicaId) && !evacuating.containsKey(replicaId)) {
+                    log.warn("Failing over replica {}: routing its devices to {} and re-dispatching its backlog",
+                            replicaId, membership.ring().members());
+                    router.beginEvacuation(replicaId);
+                    evacuating.put(replicaId, 0L);
+                }
+            }
+        }
+        previouslyLive = live;
+
+        for (int replicaId : membership.quarantinedMembers()) {
+            if (!evacuating.containsKey(replicaId) && isConsumedQuietly(replicaId)) {
+                membership.restore(replicaId);
+            }
+        }
+
+        Iterator<Map.Entry<Integer, Long>> iterator = evacuating.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Long> entry = iterator.next();
+            int replicaId = entry.getKey();
+            try {
+                if (live.contains(replicaId) || isConsumed(replicaId)) {
+                    membership.restore(replicaId);
+                } else if (live.isEmpty()) {
+                    continue;
+                } else {
+                    int moved = redispatchBacklog(replicaId);
+                    entry.setValue(entry.getValue() + moved);
+                    if (moved >= redispatchBatch) {
+                        continue;
+                    }
+                }
+                router.finishEvacuation(replicaId);
+                iterator.remove();
+                log.info("Failover of replica {} finished, {} queued measurements re-dispatched",
+                        replicaId, entry.getValue());
+            } catch (Exception e) {
+                log.error("Could not re-dispatch the backlog of replica {}: {}", replicaId, e.getMessage());
+            }
+        }
+    }
+
+    private void detectMissingConsumers() {
+        long now = System.currentTimeMillis();
+        Set<Integer> live = membership.liveMembers();
+        noConsumerSince.keySet().retainAll(live);
+        for (int replicaId : live) {
+            ReplicaLoadMonitor.QueueLoad load = loadMonitor.loadOf(replicaId);
+            if (load == null || load.getConsumers() > 0) {
+                noConsumerSince.remove(replicaId);
+                continue;
+            }
+            long since = noConsumerSince.computeIfAbsent(replicaId, id -> now);
+            if (now - since >= noConsumerGraceMs && live.size() > 1) {
+                noConsumerSince.remove(replicaId);
+                membership.markDead(replicaId, "no consumers on its ingest queue for " + (now - since) + " ms");
+            }
+        }
+    }
+
+    private boolean isConsumed(int replicaId) {
+        QueueInformation info = amqpAdmin.getQueueInfo(membership.ingestQueueOf(replicaId));
+        return info != null && info.getConsumerCount() > 0;
+    }
+
+    private boolean isConsumedQuietly(int replicaId) {
+        try {
+            return isConsumed(replicaId);
+        } catch (Exception e) {
+            log.debug("Could not check consumers of replica {}: {}", replicaId, e.getMessage());
+            return false;
+        }
+    }
+
+    private int redispatchBacklog(int replicaId) {
+        String queueName = membership.ingestQueueOf(replicaId);
+        Integer moved = rabbitTemplate.execute(channel -> {
+            int count = 0;
+            long lastDeliveryTag = -1;
+            boolean forwarded = false;
+            try {
+                while (count < redispatchBatch) {
+                    GetResponse response = channel.basicGet(queueName, false);
+                    if (response == null) {
+                        break;
+                    }
+                    lastDeliveryTag = response.getEnvelope().getDeliveryTag();
+
+                    Message message = new Message(response.getBody(), propertiesConverter.toMessageProperties(
+                            response.getProps(), response.getEnvelope(), StandardCharsets.UTF_8.name()));
+                    for (SensorDataDTO sensorData : unpack(queueName, message)) {
+                        router.redispatch(replicaId, sensorData);
+                        count++;
+                    }
+                }
+
+                router.flush();
+                forwarded = true;
+            } finally {
+                if (lastDeliveryTag >= 0 && channel.isOpen()) {
+                    if (forwarded) {
+                        channel.basicAck(lastDeliveryTag, true);
+                    } else {
+                        channel.basicNack(lastDeliveryTag, true, true);
+                    }
+                }
+            }
+            return count;
+        });
+        return moved != null ? moved : 0;
+    }
+
+    private List<SensorDataDTO> unpack(String queueName, Message message) {
+        if (message.getMessageProperties().getHeaders().containsKey(RabbitMQConfig.DRAIN_TOKEN_HEADER)) {
+            return List.of();
+        }
+
+        Object payload;
+        try {
+            payload = rabbitTemplate.getMessageConverter().fromMessage(message);
+        } catch (RuntimeException e) {
+            log.warn("Dropping unreadable message on {} during failover: {}", queueName, e.getMessage());
+            return List.of();
+        }
+        if (payload instanceof MeasurementEnvelopeDTO envelope) {
+            return envelope.toSensorData();
+        }
+        if (payload instanceof SensorDataDTO sensorData) {
+            return List.of(sensorData);
+        }
+        log.warn("Dropping unexpected message on {} during failover: {}", queueName, payload);
+        return List.of();
+    }
+}
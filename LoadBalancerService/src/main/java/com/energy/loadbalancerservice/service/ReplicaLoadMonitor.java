@@ -0,0 +1,120 @@
+package com.energy.loadbalancerservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class ReplicaLoadMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLoadMonitor.class);
+
+    private static final double RECOVERY_RATIO = 0.5;
+
+    private final AmqpAdmin amqpAdmin;
+    private final ReplicaMembership membership;
+
+    private volatile Map<Integer, QueueLoad> loads = Map.of();
+    private volatile Map<Integer, Double> spillFractions = Map.of();
+
+    @Value("${loadbalancer.load.balance-factor:1.25}")
+    private double balanceFactor;
+
+    @Value("${loadbalancer.load.min-depth:500}")
+    private long minDepth;
+
+    @Autowired
+    public ReplicaLoadMonitor(AmqpAdmin amqpAdmin, ReplicaMembership membership) {
+        this.amqpAdmin = amqpAdmin;
+        this.membership = membership;
+    }
+
+    public boolean isOverloaded(int replicaId) {
+        return spillFractions.containsKey(replicaId);
+    }
+
+    public double spillFraction(int replicaId) {
+        return spillFractions.getOrDefault(replicaId, 0.0);
+    }
+
+    public QueueLoad loadOf(int replicaId) {
+        return loads.get(replicaId);
+    }
+
+    @Scheduled(fixedDelayString = "${loadbalancer.load.sample-interval-ms:1000}")
+    public void sample() {
+        List<Integer> members = membership.ring().members();
+        Map<Integer, QueueLoad> sampled = new HashMap<>();
+        for (int replicaId : members) {
+            try {
+                QueueInformation info = amqpAdmin.getQueueInfo(membership.ingestQueueOf(replicaId));
+                if (info != null) {
+                    sampled.put(replicaId, new QueueLoad(info.getMessageCount(), info.getConsumerCount()));
+                }
+            } catch (Exception e) {
+                log.debug("Could not sample ingest queue of replica {}: {}", replicaId, e.getMessage());
+            }
+        }
+        if (sampled.isEmpty()) {
+            return;
+        }
+
+        double average = sampled.values().stream().mapToDouble(QueueLoad::perConsumer).average().orElse(0);
+        double limit = Math.max(minDepth, average * balanceFactor);
+
+        Map<Integer, Double> previous = spillFractions;
+        Map<Integer, Double> next = new HashMap<>();
+        sampled.forEach((replicaId, load) -> {
+            Double spilled = previous.get(replicaId);
+            double threshold = spilled != null ? limit * RECOVERY_RATIO : limit;
+            if (load.perConsumer() > threshold) {
+                double excess = Math.max(0, 1 - limit / load.perConsumer());
+                next.put(replicaId, Math.min(1.0, Math.max(excess, spilled != null ? spilled : 0)));
+            }
+        });
+
+        loads = sampled;
+        spillFractions = next;
+        if (!next.keySet().equals(previous.keySet())) {
+            log.warn("Overloaded replicas changed {} → {} (limit {} messages per consumer, loads {}, spilling {})",
+                    previous.keySet(), next.keySet(), Math.round(limit), sampled, next);
+        }
+    }
+
+    public static final class QueueLoad {
+
+        private final long depth;
+        private final int consumers;
+
+        QueueLoad(long depth, int consumers) {
+            this.depth = depth;
+            this.consumers = consumers;
+        }
+
+        public long getDepth() {
+            return depth;
+        }
+
+        public int getConsumers() {
+            return consumers;
+        }
+
+        double perConsumer() {
+            return (double) depth / Math.max(consumers, 1);
+        }
+
+        @Override
+        public String toString() {
+            return depth + "/" + consumers;
+        }
+    }
+}
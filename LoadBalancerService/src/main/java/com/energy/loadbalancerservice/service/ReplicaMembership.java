@@ -0,0 +1,182 @@
+package com.energy.loadbalancerservice.service;
+
+import com.energy.loadbalancerservice.config.RabbitMQConfig;
+import com.energy.loadbalancerservice.dto.ReplicaHeartbeatDTO;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Component
+public class ReplicaMembership {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaMembership.class);
+
+    private final AmqpAdmin amqpAdmin;
+    private final ConcurrentMap<Integer, Member> members = new ConcurrentHashMap<>();
+    private final Set<String> declaredQueues = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> quarantined = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<ConsistentHashRing> ring = new AtomicReference<>();
+
+    @Value("${loadbalancer.replica.count:3}")
+    private int seedReplicaCount;
+
+    @Value("${loadbalancer.ring.virtual-nodes:160}")
+    private int virtualNodes;
+
+    @Value("${loadbalancer.membership.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @Autowired
+    public ReplicaMembership(AmqpAdmin amqpAdmin) {
+        this.amqpAdmin = amqpAdmin;
+    }
+
+    @PostConstruct
+    public void init() {
+        long now = System.currentTimeMillis();
+        for (int replicaId = 1; replicaId <= seedReplicaCount; replicaId++) {
+            members.put(replicaId, new Member(null, now));
+        }
+        rebuildRing();
+    }
+
+    public ConsistentHashRing ring() {
+        ConsistentHashRing current = ring.get();
+        return current != null ? current : seedRing();
+    }
+
+    private ConsistentHashRing seedRing() {
+        List<Integer> seeds = new ArrayList<>();
+        for (int replicaId = 1; replicaId <= seedReplicaCount; replicaId++) {
+            seeds.add(replicaId);
+        }
+        return ConsistentHashRing.of(seeds, virtualNodes);
+    }
+
+    public Set<Integer> liveMembers() {
+        return Set.copyOf(members.keySet());
+    }
+
+    public Set<Integer> quarantinedMembers() {
+        return Set.copyOf(quarantined);
+    }
+
+    public void markDead(int replicaId, String reason) {
+        quarantined.add(replicaId);
+        if (members.remove(replicaId) != null) {
+            log.warn("Replica {} declared dead ({}), removing it from the ingest ring", replicaId, reason);
+            rebuildRing();
+        }
+    }
+
+    public void restore(int replicaId) {
+        if (quarantined.remove(replicaId)) {
+            log.info("Replica {} is consuming again, accepting its heartbeats", replicaId);
+        }
+    }
+
+    public String ingestQueueOf(int replicaId) {
+        String queueName = RabbitMQConfig.INGEST_QUEUE_PREFIX + replicaId;
+        if (declaredQueues.add(queueName)) {
+            try {
+                amqpAdmin.declareQueue(new Queue(queueName, true));
+                log.info("Declared ingest queue {} for replica {}", queueName, replicaId);
+            } catch (RuntimeException e) {
+                declaredQueues.remove(queueName);
+                throw e;
+            }
+        }
+        return queueName;
+    }
+
+    @RabbitListener(queues = "#{replicaHeartbeatQueue.name}")
+    public void handleHeartbeat(ReplicaHeartbeatDTO heartbeat) {
+        int replicaId = heartbeat.getReplicaId();
+        if (replicaId <= 0 || quarantined.contains(replicaId)) {
+            return;
+        }
+
+        if (ReplicaHeartbeatDTO.STATUS_LEAVING.equals(heartbeat.getStatus())) {
+            Member member = members.get(replicaId);
+            if (member != null && (member.instanceId == null || member.instanceId.equals(heartbeat.getInstanceId()))
+                    && members.remove(replicaId, member)) {
+                log.info("Replica {} left the ingest ring", replicaId);
+                rebuildRing();
+            }
+            return;
+        }
+
+        Member previous = members.put(replicaId, new Member(heartbeat.getInstanceId(), System.currentTimeMillis()));
+        if (previous == null) {
+            log.info("Replica {} joined the ingest ring (instance {})", replicaId, heartbeat.getInstanceId());
+            try {
+                ingestQueueOf(replicaId);
+            } catch (RuntimeException e) {
+                log.warn("Could not declare ingest queue for replica {}: {}", replicaId, e.getMessage());
+            }
+            rebuildRing();
+        } else if (previous.instanceId != null && !previous.instanceId.equals(heartbeat.getInstanceId())) {
+            log.info("Replica {} restarted (instance {} → {})", replicaId, previous.instanceId, heartbeat.getInstanceId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${loadbalancer.membership.check-interval-ms:1000}")
+    public void expireMembers() {
+        long deadline = System.currentTimeMillis() - timeoutMs;
+        boolean changed = false;
+        for (var entry : members.entrySet()) {
+            if (entry.getValue().lastSeen < deadline && members.remove(entry.getKey(), entry.getValue())) {
+                log.warn("Replica {} missed heartbeats for {} ms, removing it from the ingest ring",
+                        entry.getKey(), timeoutMs);
+                changed = true;
+            }
+        }
+        if (changed) {
+            rebuildRing();
+        }
+    }
+
+    private synchronized void rebuildRing() {
+        List<Integer> live = members.keySet().stream().sorted().toList();
+        ConsistentHashRing current = ring.get();
+        if (current != null && current.members().equals(live)) {
+            return;
+        }
+        if (live.isEmpty()) {
+            if (current != null) {
+                log.warn("No live replicas, keeping routing to {} so measurements queue up until one returns",
+                        current.members());
+            }
+            return;
+        }
+
+        ring.set(ConsistentHashRing.of(live, virtualNodes));
+        log.info("Hash ring updated: members {} → {} ({} virtual nodes each)",
+                current != null ? current.members() : List.of(), live, virtualNodes);
+    }
+
+    private static final class Member {
+
+        private final String instanceId;
+        private final long lastSeen;
+
+        Member(String instanceId, long lastSeen) {
+            this.instanceId = instanceId;
+            this.lastSeen = lastSeen;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.energy.loadbalancerservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class ConsistentHashRingTest {
+
+    private static final int VIRTUAL_NODES = 160;
+    private static final int DEVICES = 50_000;
+
+    private final List<UUID> devices = devices();
+
+    @Test
+    void addingAReplicaMovesAboutOneNthOfTheDevicesAndOnlyToTheNewReplica() {
+        ConsistentHashRing before = ConsistentHashRing.of(List.of(1, 2, 3), VIRTUAL_NODES);
+        ConsistentHashRing after = ConsistentHashRing.of(List.of(1, 2, 3, 4), VIRTUAL_NODES);
+
+        int moved = 0;
+        for (UUID device : devices) {
+            int owner = after.ownerOf(device);
+            if (owner != before.ownerOf(device)) {
+                assertThat(owner).isEqualTo(4);
+                moved++;
+            }
+        }
+
+        assertThat((double) moved / DEVICES).isCloseTo(0.25, within(0.05));
+    }
+
+    @Test
+    void removingAReplicaMovesOnlyItsOwnDevices() {
+        ConsistentHashRing before = ConsistentHashRing.of(List.of(1, 2, 3, 4), VIRTUAL_NODES);
+        ConsistentHashRing after = ConsistentHashRing.of(List.of(1, 2, 4), VIRTUAL_NODES);
+
+        int moved = 0;
+        for (UUID device : devices) {
+            int owner = before.ownerOf(device);
+            if (owner == 3) {
+                assertThat(after.ownerOf(device)).isNotEqualTo(3);
+                moved++;
+            } else {
+                assertThat(after.ownerOf(device)).isEqualTo(owner);
+            }
+        }
+
+        assertThat((double) moved / DEVICES).isCloseTo(0.25, within(0.05));
+    }
+
+    @Test
+    void devicesSpreadEvenlyOverTheReplicas() {
+        ConsistentHashRing ring = ConsistentHashRing.of(List.of(1, 2, 3, 4, 5), VIRTUAL_NODES);
+
+        Map<Integer, Integer> counts = new HashMap<>();
+        devices.forEach(device -> counts.merge(ring.ownerOf(device), 1, Integer::sum));
+
+        assertThat(counts).hasSize(5);
+        counts.values().forEach(count -> assertThat((double) count / DEVICES).isCloseTo(0.2, within(0.04)));
+    }
+
+    @Test
+    void preferenceListStartsAtTheOwnerAndNamesEveryReplicaOnce() {
+        ConsistentHashRing ring = ConsistentHashRing.of(List.of(3, 1, 2), VIRTUAL_NODES);
+
+        for (UUID device : devices.subList(0, 1_000)) {
+            List<Integer> preferred = ring.preferenceList(device, 3);
+            assertThat(preferred.get(0)).isEqualTo(ring.ownerOf(device));
+            assertThat(preferred).containsExactlyInAnyOrder(1, 2, 3);
+        }
+    }
+
+    @Test
+    void emptyRingHasNoPreferenceAndNoOwner() {
+        ConsistentHashRing ring = ConsistentHashRing.of(List.of(), VIRTUAL_NODES);
+        UUID device = devices.get(0);
+
+        assertThat(ring.isEmpty()).isTrue();
+        assertThat(ring.preferenceList(device, 3)).isEmpty();
+        assertThatThrownBy(() -> ring.ownerOf(device)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static List<UUID> devices() {
+        Random random = new Random(42);
+        List<UUID> devices = new ArrayList<>(DEVICES);
+        for (int i = 0; i < DEVICES; i++) {
+            devices.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        return devices;
+    }
+}
@@ -0,0 +1,315 @@
+package com.energy.loadbalancerservice.service;
+
+import com.energy.loadbalancerservice.config.RabbitMQConfig;
+import com.energy.loadbalancerservice.dto.DrainAckDTO;
+import com.energy.loadbalancerservice.dto.MeasurementEnvelopeDTO;
+import com.energy.loadbalancerservice.dto.SensorDataDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class DeviceRouterTest {
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final RabbitOperations operations = mock(RabbitOperations.class);
+    private final ReplicaMembership membership = mock(ReplicaMembership.class);
+    private final ReplicaLoadMonitor loadMonitor = mock(ReplicaLoadMonitor.class);
+    private final DeviceRouter router = new DeviceRouter(rabbitTemplate, membership, loadMonitor, new Queue("drain-acks"));
+
+    private final UUID deviceId = UUID.randomUUID();
+    private final LocalDateTime start = LocalDateTime.of(2024, 3, 1, 0, 0);
+    private final SensorDataDTO reading = new SensorDataDTO(deviceId, start, 0.5);
+    private final AtomicInteger acks = new AtomicInteger();
+
+    private ConsistentHashRing ring = ConsistentHashRing.of(List.of(1), 160);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(router, "drainTimeoutMs", 30000L);
+        ReflectionTestUtils.setField(router, "maxHeld", 500);
+        ReflectionTestUtils.setField(router, "idleDeviceMs", 600000L);
+        ReflectionTestUtils.setField(router, "maxEnvelopeSize", 500);
+        ReflectionTestUtils.setField(router, "confirmTimeoutMs", 5000L);
+
+        when(membership.ring()).thenAnswer(invocation -> ring);
+        when(membership.ingestQueueOf(anyInt())).thenAnswer(invocation -> "ingest_" + invocation.getArgument(0));
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation ->
+                invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(operations));
+    }
+
+    @Test
+    void readingIsUnroutableWhileTheRingIsEmpty() {
+        when(membership.ring()).thenReturn(ConsistentHashRing.of(List.of(), 160));
+
+        assertThat(router.dispatch(reading, null)).isEqualTo(DeviceRouter.UNROUTABLE);
+    }
+
+    @Test
+    void redispatchFailsInsteadOfDroppingWhenTheRingIsEmpty() {
+        when(membership.ring()).thenReturn(ConsistentHashRing.of(List.of(), 160));
+
+        assertThatThrownBy(() -> router.redispatch(1, reading)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void readingIsRoutedToItsOwnerOnceAReplicaJoins() {
+        ConsistentHashRing ring = ConsistentHashRing.of(List.of(1, 2, 3), 160);
+        when(membership.ring()).thenReturn(ConsistentHashRing.of(List.of(), 160), ring);
+
+        assertThat(router.dispatch(reading, null)).isEqualTo(DeviceRouter.UNROUTABLE);
+        assertThat(router.dispatch(reading, null)).isEqualTo(ring.ownerOf(reading.getDeviceId()));
+    }
+
+    @Test
+    void readingIsAcknowledgedOnlyAfterItsEnvelopeIsConfirmed() {
+        assertThat(router.dispatch(reading, acks::incrementAndGet)).isEqualTo(1);
+
+        assertThat(acks).hasValue(0);
+        verifyNoInteractions(operations);
+
+        router.flush();
+
+        InOrder inOrder = inOrder(operations);
+        inOrder.verify(operations).convertAndSend(eq("ingest_1"), any(MeasurementEnvelopeDTO.class),
+                any(MessagePostProcessor.class));
+        inOrder.verify(operations).waitForConfirmsOrDie(5000L);
+        assertThat(acks).hasValue(1);
+    }
+
+    @Test
+    void unconfirmedPublishIsNotAcknowledged() {
+        doThrow(new AmqpException("nacked by broker")).when(operations).waitForConfirmsOrDie(anyLong());
+        router.dispatch(reading, acks::incrementAndGet);
+
+        assertThatThrownBy(router::flush).isInstanceOf(AmqpException.class);
+        assertThat(acks).hasValue(0);
+    }
+
+    @Test
+    void readingsArePublishedInEnvelopesOfAtMostTheConfiguredSize() {
+        ReflectionTestUtils.setField(router, "maxEnvelopeSize", 2);
+        for (int i = 0; i < 5; i++) {
+            router.dispatch(new SensorDataDTO(deviceId, start.plusMinutes(i), (double) i), acks::incrementAndGet);
+        }
+
+        router.flush();
+
+        List<List<SensorDataDTO>> envelopes = publishedTo("ingest_1", 3);
+        assertThat(envelopes).extracting(List::size).containsExactly(2, 2, 1);
+        assertThat(envelopes.stream().flatMap(List::stream).map(SensorDataDTO::getMeasurementValue))
+                .containsExactly(0.0, 1.0, 2.0, 3.0, 4.0);
+        assertThat(acks).hasValue(5);
+    }
+
+    @Test
+    void movedDeviceIsHeldUntilTheOldReplicaAcknowledgesTheDrainMarker() {
+        router.dispatch(reading, acks::incrementAndGet);
+        router.flush();
+        ring = ConsistentHashRing.of(List.of(2), 160);
+
+        SensorDataDTO moved = new SensorDataDTO(deviceId, start.plusMinutes(1), 1.0);
+        assertThat(router.dispatch(moved, acks::incrementAndGet)).isEqualTo(DeviceRouter.HELD);
+        router.flush();
+
+        Map<String, Object> marker = markersSentTo("ingest_1", 1).get(0);
+        long token = (Long) marker.get(RabbitMQConfig.DRAIN_TOKEN_HEADER);
+        assertThat(marker.get(RabbitMQConfig.DRAIN_REPLY_TO_HEADER)).isEqualTo("drain-acks");
+        assertThat(marker.get(RabbitMQConfig.DRAIN_DEVICES_HEADER)).isEqualTo(List.of(deviceId.toString()));
+        assertThat(acks).hasValue(1);
+
+        router.handleDrainAck(new DrainAckDTO(1, token + 1));
+        router.handleDrainAck(new DrainAckDTO(2, token));
+        verify(operations, never()).convertAndSend(eq("ingest_2"), any(MeasurementEnvelopeDTO.class),
+                any(MessagePostProcessor.class));
+
+        router.handleDrainAck(new DrainAckDTO(1, token));
+
+        assertThat(publishedTo("ingest_2", 1).get(0)).extracting(SensorDataDTO::getTimestamp)
+                .containsExactly(moved.getTimestamp());
+        assertThat(acks).hasValue(2);
+        assertThat(router.dispatch(new SensorDataDTO(deviceId, start.plusMinutes(2), 2.0), null)).isEqualTo(2);
+    }
+
+    @Test
+    void deviceMovingWhileAMarkerIsPendingWaitsForAMarkerThatNamesIt() {
+        UUID otherDeviceId = UUID.randomUUID();
+        AtomicInteger otherAcks = new AtomicInteger();
+        router.dispatch(reading, null);
+        router.dispatch(new SensorDataDTO(otherDeviceId, start, 0.5), null);
+        router.flush();
+        ring = ConsistentHashRing.of(List.of(2), 160);
+
+        router.dispatch(new SensorDataDTO(deviceId, start.plusMinutes(1), 1.0), acks::incrementAndGet);
+        router.dispatch(new SensorDataDTO(otherDeviceId, start.plusMinutes(1), 1.0), otherAcks::incrementAndGet);
+        Map<String, Object> first = markersSentTo("ingest_1", 1).get(0);
+        assertThat(first.get(RabbitMQConfig.DRAIN_DEVICES_HEADER)).isEqualTo(List.of(deviceId.toString()));
+
+        router.handleDrainAck(new DrainAckDTO(1, (Long) first.get(RabbitMQConfig.DRAIN_TOKEN_HEADER)));
+
+        assertThat(acks).hasValue(1);
+        assertThat(otherAcks).hasValue(0);
+        Map<String, Object> second = markersSentTo("ingest_1", 2).get(1);
+        assertThat(second.get(RabbitMQConfig.DRAIN_DEVICES_HEADER)).isEqualTo(List.of(otherDeviceId.toString()));
+        assertThat(second.get(RabbitMQConfig.DRAIN_REPLY_TO_HEADER)).isEqualTo("drain-acks");
+
+        router.handleDrainAck(new DrainAckDTO(1, (Long) second.get(RabbitMQConfig.DRAIN_TOKEN_HEADER)));
+
+        assertThat(otherAcks).hasValue(1);
+    }
+
+    @Test
+    void exceedingTheHoldLimitForcesTheHeldReadingsThroughWithoutWaiting() {
+        ReflectionTestUtils.setField(router, "maxHeld", 2);
+        router.dispatch(reading, acks::incrementAndGet);
+        router.flush();
+        ring = ConsistentHashRing.of(List.of(2), 160);
+
+        for (int i = 1; i <= 3; i++) {
+            router.dispatch(new SensorDataDTO(deviceId, start.plusMinutes(i), (double) i), acks::incrementAndGet);
+        }
+        router.flush();
+
+        assertThat(publishedTo("ingest_2", 1).get(0)).extracting(SensorDataDTO::getMeasurementValue)
+                .containsExactly(1.0, 2.0, 3.0);
+        assertThat(acks).hasValue(4);
+        Map<String, Object> notice = markersSentTo("ingest_1", 2).get(1);
+        assertThat(notice.get(RabbitMQConfig.DRAIN_DEVICES_HEADER)).isEqualTo(List.of(deviceId.toString()));
+        assertThat(notice).doesNotContainKey(RabbitMQConfig.DRAIN_REPLY_TO_HEADER);
+        assertThat(router.dispatch(new SensorDataDTO(deviceId, start.plusMinutes(4), 4.0), null)).isEqualTo(2);
+    }
+
+    @Test
+    void unacknowledgedDrainIsForcedThroughOnceTheTimeoutPasses() {
+        ReflectionTestUtils.setField(router, "drainTimeoutMs", -1L);
+        router.dispatch(reading, acks::incrementAndGet);
+        router.flush();
+        ring = ConsistentHashRing.of(List.of(2), 160);
+        router.dispatch(new SensorDataDTO(deviceId, start.plusMinutes(1), 1.0), acks::incrementAndGet);
+
+        router.checkDrains();
+
+        assertThat(publishedTo("ingest_2", 1)).hasSize(1);
+        assertThat(acks).hasValue(2);
+        assertThat(markersSentTo("ingest_1", 2).get(1)).doesNotContainKey(RabbitMQConfig.DRAIN_REPLY_TO_HEADER);
+    }
+
+    @Test
+    void deviceReturningBeforeItsDrainFinishesIsReleasedToItsOldReplicaInOrder() {
+        router.dispatch(reading, null);
+        router.flush();
+        ring = ConsistentHashRing.of(List.of(2), 160);
+        router.dispatch(new SensorDataDTO(deviceId, start.plusMinutes(1), 1.0), acks::incrementAndGet);
+        ring = ConsistentHashRing.of(List.of(1), 160);
+
+        assertThat(router.dispatch(new SensorDataDTO(deviceId, start.plusMinutes(2), 2.0), acks::incrementAndGet))
+                .isEqualTo(1);
+        router.flush();
+
+        assertThat(publishedTo("ingest_1", 2).get(1)).extracting(SensorDataDTO::getMeasurementValue)
+                .containsExactly(1.0, 2.0);
+        assertThat(acks).hasValue(2);
+    }
+
+    @Test
+    void overloadedReplicaSpillsOnlyTheDevicesBelowItsSpillFraction() {
+        ring = ConsistentHashRing.of(List.of(1, 2), 160);
+        when(loadMonitor.spillFraction(1)).thenReturn(0.5);
+
+        int spilled = 0;
+        int kept = 0;
+        for (int i = 0; i < 200; i++) {
+            UUID device = UUID.nameUUIDFromBytes(("device-" + i).getBytes());
+            int owner = ring.ownerOf(device);
+            boolean spills = owner == 1 && ConsistentHashRing.unitHash(device, 1) < 0.5;
+
+            assertThat(router.dispatch(new SensorDataDTO(device, start, 0.5), null)).isEqualTo(spills ? 2 : owner);
+            if (owner == 1) {
+                if (spills) {
+                    spilled++;
+                } else {
+                    kept++;
+                }
+            }
+        }
+        assertThat(spilled).isPositive();
+        assertThat(kept).isPositive();
+    }
+
+    @Test
+    void evacuatedBacklogIsForwardedAheadOfTheHeldReadingsWithoutAMarker() {
+        router.dispatch(reading, null);
+        router.flush();
+        router.beginEvacuation(1);
+        ring = ConsistentHashRing.of(List.of(2), 160);
+
+        assertThat(router.dispatch(new SensorDataDTO(deviceId, start.plusMinutes(2), 2.0), acks::incrementAndGet))
+                .isEqualTo(DeviceRouter.HELD);
+        assertThat(router.redispatch(1, new SensorDataDTO(deviceId, start.plusMinutes(1), 1.0))).isEqualTo(2);
+        router.finishEvacuation(1);
+        router.flush();
+
+        verify(rabbitTemplate, never()).convertAndSend(anyString(), any(SensorDataDTO.class),
+                any(MessagePostProcessor.class));
+        assertThat(publishedTo("ingest_2", 1).get(0)).extracting(SensorDataDTO::getMeasurementValue)
+                .containsExactly(1.0, 2.0);
+        assertThat(acks).hasValue(1);
+    }
+
+    private List<List<SensorDataDTO>> publishedTo(String queue, int envelopes) {
+        ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+        ArgumentCaptor<MessagePostProcessor> postProcessors = ArgumentCaptor.forClass(MessagePostProcessor.class);
+        verify(operations, times(envelopes)).convertAndSend(eq(queue), payloads.capture(), postProcessors.capture());
+
+        postProcessors.getAllValues().forEach(postProcessor -> assertThat(headersOf(postProcessor))
+                .containsEntry(RabbitMQConfig.MEASUREMENT_ENVELOPE_HEADER, 1));
+        List<List<SensorDataDTO>> published = new ArrayList<>();
+        for (Object payload : payloads.getAllValues()) {
+            published.add(((MeasurementEnvelopeDTO) payload).toSensorData());
+        }
+        return published;
+    }
+
+    private List<Map<String, Object>> markersSentTo(String queue, int markers) {
+        ArgumentCaptor<MessagePostProcessor> postProcessors = ArgumentCaptor.forClass(MessagePostProcessor.class);
+        verify(rabbitTemplate, times(markers)).convertAndSend(eq(queue), any(SensorDataDTO.class),
+                postProcessors.capture());
+        return postProcessors.getAllValues().stream().map(DeviceRouterTest::headersOf).toList();
+    }
+
+    private static Map<String, Object> headersOf(MessagePostProcessor postProcessor) {
+        return postProcessor.postProcessMessage(new Message(new byte[0], new MessageProperties()))
+                .getMessageProperties().getHeaders();
+    }
+}
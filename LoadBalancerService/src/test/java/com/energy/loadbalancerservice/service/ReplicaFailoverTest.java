@@ -0,0 +1,150 @@
+package com.energy.loadbalancerservice.service;
+
+import com.energy.loadbalancerservice.config.RabbitMQConfig;
+import com.energy.loadbalancerservice.dto.MeasurementEnvelopeDTO;
+import com.energy.loadbalancerservice.dto.SensorDataDTO;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.rabbit.core.ChannelCallback;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReplicaFailoverTest {
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final ReplicaMembership membership = mock(ReplicaMembership.class);
+    private final DeviceRouter router = mock(DeviceRouter.class);
+    private final Channel channel = mock(Channel.class);
+    private final MessageConverter messageConverter = mock(MessageConverter.class);
+    private final ReplicaFailover failover = new ReplicaFailover(rabbitTemplate, mock(AmqpAdmin.class), membership,
+            mock(ReplicaLoadMonitor.class), router);
+
+    private final UUID deviceId = UUID.randomUUID();
+    private final LocalDateTime start = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    private Set<Integer> live = Set.of(1, 2);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(failover, "noConsumerGraceMs", 3000L);
+        ReflectionTestUtils.setField(failover, "redispatchBatch", 100);
+
+        when(membership.liveMembers()).thenAnswer(invocation -> live);
+        when(membership.ring()).thenReturn(ConsistentHashRing.of(List.of(2), 160));
+        when(membership.ingestQueueOf(anyInt())).thenAnswer(invocation -> "ingest_" + invocation.getArgument(0));
+        when(rabbitTemplate.getMessageConverter()).thenReturn(messageConverter);
+        when(rabbitTemplate.execute(any(ChannelCallback.class))).thenAnswer(invocation ->
+                invocation.<ChannelCallback<?>>getArgument(0).doInRabbit(channel));
+        when(channel.isOpen()).thenReturn(true);
+    }
+
+    @Test
+    void backlogIsAcknowledgedOnlyAfterTheRedispatchedReadingsAreConfirmed() throws Exception {
+        when(channel.basicGet("ingest_1", false)).thenReturn(message(1), marker(2), message(3), null);
+        when(messageConverter.fromMessage(any())).thenReturn(
+                MeasurementEnvelopeDTO.of(List.of(reading(0), reading(1))), reading(2));
+
+        failOverReplicaOne();
+
+        InOrder inOrder = inOrder(router, channel);
+        inOrder.verify(router).beginEvacuation(1);
+        inOrder.verify(router).redispatch(eq(1), argThat(sensorData -> sensorData.getMeasurementValue() == 0.0));
+        inOrder.verify(router).redispatch(eq(1), argThat(sensorData -> sensorData.getMeasurementValue() == 1.0));
+        inOrder.verify(router).redispatch(eq(1), argThat(sensorData -> sensorData.getMeasurementValue() == 2.0));
+        inOrder.verify(router).flush();
+        inOrder.verify(channel).basicAck(3, true);
+        inOrder.verify(router).finishEvacuation(1);
+        verify(messageConverter, times(2)).fromMessage(any());
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    void unconfirmedForwardRequeuesTheBacklogAndRetriesOnTheNextCheck() throws Exception {
+        when(channel.basicGet("ingest_1", false)).thenReturn(message(1), message(2), null, message(1), message(2), null);
+        when(messageConverter.fromMessage(any())).thenReturn(reading(0));
+        doThrow(new AmqpException("confirm timed out")).doNothing().when(router).flush();
+
+        failOverReplicaOne();
+
+        verify(channel).basicNack(2, true, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+        verify(router, never()).finishEvacuation(1);
+
+        failover.checkReplicas();
+
+        verify(channel).basicAck(2, true);
+        verify(router).finishEvacuation(1);
+        verify(router, times(4)).redispatch(eq(1), any(SensorDataDTO.class));
+    }
+
+    @Test
+    void backlogLargerThanABatchIsDrainedOverSeveralChecks() throws Exception {
+        ReflectionTestUtils.setField(failover, "redispatchBatch", 2);
+        when(channel.basicGet("ingest_1", false)).thenReturn(message(1), message(2), message(3), null);
+        when(messageConverter.fromMessage(any())).thenReturn(reading(0));
+
+        failOverReplicaOne();
+
+        verify(channel).basicAck(2, true);
+        verify(router, never()).finishEvacuation(1);
+
+        failover.checkReplicas();
+
+        verify(channel).basicAck(3, true);
+        verify(router).finishEvacuation(1);
+    }
+
+    private void failOverReplicaOne() {
+        failover.checkReplicas();
+        live = Set.of(2);
+        failover.checkReplicas();
+    }
+
+    private SensorDataDTO reading(int minute) {
+        return new SensorDataDTO(deviceId, start.plusMinutes(minute), (double) minute);
+    }
+
+    private static GetResponse message(long deliveryTag) {
+        return response(deliveryTag, new AMQP.BasicProperties.Builder().build());
+    }
+
+    private static GetResponse marker(long deliveryTag) {
+        return response(deliveryTag, new AMQP.BasicProperties.Builder()
+                .headers(Map.of(RabbitMQConfig.DRAIN_TOKEN_HEADER, 7L))
+                .build());
+    }
+
+    private static GetResponse response(long deliveryTag, AMQP.BasicProperties properties) {
+        return new GetResponse(new Envelope(deliveryTag, false, "", "ingest_1"), properties, new byte[0], 0);
+    }
+}
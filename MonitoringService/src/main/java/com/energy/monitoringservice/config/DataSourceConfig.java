@@ -0,0 +1,59 @@
+package com.energy.monitoringservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class DataSourceConfig {
+
+    @Value("${monitoring.datasource.read-replica.url:}")
+    private String readReplicaUrl;
+
+    @Value("${monitoring.datasource.read-replica.username:${spring.datasource.username:}}")
+    private String readReplicaUsername;
+
+    @Value("${monitoring.datasource.read-replica.password:${spring.datasource.password:}}")
+    private String readReplicaPassword;
+
+    @Value("${monitoring.datasource.read-replica.maximum-pool-size:10}")
+    private int readReplicaPoolSize;
+
+    @Value("${monitoring.datasource.read-replica.max-lag-seconds:5}")
+    private double maxLagSeconds;
+
+    @Bean(destroyMethod = "close")
+    public ReadReplicaRoutingDataSource routingDataSource(DataSourceProperties properties, Environment environment) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+
+        HikariDataSource readReplica = null;
+        if (!readReplicaUrl.isBlank()) {
+            readReplica = new HikariDataSource();
+            readReplica.setJdbcUrl(readReplicaUrl);
+            readReplica.setUsername(readReplicaUsername);
+            readReplica.setPassword(readReplicaPassword);
+            readReplica.setMaximumPoolSize(readReplicaPoolSize);
+            readReplica.setReadOnly(true);
+            readReplica.setPoolName("read-replica");
+        }
+
+        return new ReadReplicaRoutingDataSource(primary, readReplica, maxLagSeconds);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -2,11 +2,13 @@ package com.energy.monitoringservice.config;
 
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -16,14 +18,30 @@ public class RabbitMQConfig {
 
     public static final String SYNC_EXCHANGE = "sync_fanout_exchange";
     public static final String MONITORING_SYNC_QUEUE = "monitoring_sync_queue";
+    public static final String MONITORING_SYNC_BROADCAST_PREFIX = "monitoring_sync_broadcast_";
 
     public static final String WEBSOCKET_EXCHANGE = "websocket_exchange";
     public static final String WEBSOCKET_ALERT_QUEUE = "websocket_alert_queue";
     public static final String WEBSOCKET_MEASUREMENT_QUEUE = "websocket_measurement_queue";
+    public static final String MONITORING_CACHE_INVALIDATION_PREFIX = "monitoring_cache_invalidation_";
+
+
+    public static final String REPLICA_HEARTBEAT_EXCHANGE = "monitoring_replica_heartbeat_exchange";
+
+    public static final String DRAIN_TOKEN_HEADER = "x-drain-token";
+    public static final String DRAIN_REPLY_TO_HEADER = "x-drain-reply-to";
+    public static final String DRAIN_DEVICES_HEADER = "x-drain-devices";
+    public static final String MEASUREMENT_ENVELOPE_HEADER = "x-measurement-envelope";
 
     @Value("${monitoring.replica.id:1}")
     private int replicaId;
 
+    @Value("${monitoring.ingest.batch-size:200}")
+    private int ingestBatchSize;
+
+    @Value("${monitoring.ingest.batch-timeout-ms:500}")
+    private long ingestBatchTimeoutMs;
+
     @Bean
     public String ingestQueueName() {
         return "ingest_queue_" + replicaId;
@@ -35,6 +53,20 @@ public class RabbitMQConfig {
         return new Queue(queueName, true);
     }
 
+    @Bean
+    public SimpleRabbitListenerContainerFactory ingestBatchContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(ingestBatchSize);
+        factory.setBatchReceiveTimeout(ingestBatchTimeoutMs);
+        factory.setPrefetchCount(Math.max(ingestBatchSize * 2, 250));
+        factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        return factory;
+    }
 
     @Bean
     public Queue monitoringSyncQueue() {
@@ -52,6 +84,17 @@ public class RabbitMQConfig {
                 .to(syncFanoutExchange());
     }
 
+    @Bean
+    public Queue monitoringSyncBroadcastQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy(MONITORING_SYNC_BROADCAST_PREFIX + replicaId + "_"));
+    }
+
+    @Bean
+    public Binding monitoringSyncBroadcastBinding() {
+        return BindingBuilder.bind(monitoringSyncBroadcastQueue())
+                .to(syncFanoutExchange());
+    }
+
     @Bean
     public Queue websocketAlertQueue() {
         return new Queue(WEBSOCKET_ALERT_QUEUE, true);
@@ -81,6 +124,23 @@ public class RabbitMQConfig {
                 .with("measurement");
     }
 
+    @Bean
+    public Queue monitoringCacheInvalidationQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy(MONITORING_CACHE_INVALIDATION_PREFIX + replicaId + "_"));
+    }
+
+    @Bean
+    public Binding monitoringCacheInvalidationBinding() {
+        return BindingBuilder.bind(monitoringCacheInvalidationQueue())
+                .to(websocketExchange())
+                .with("measurement");
+    }
+
+    @Bean
+    public FanoutExchange replicaHeartbeatExchange() {
+        return new FanoutExchange(REPLICA_HEARTBEAT_EXCHANGE, true, false);
+    }
+
     @Bean
     public MessageConverter jsonMessageConverter() {
         return new Jackson2JsonMessageConverter();
@@ -0,0 +1,47 @@
+package com.energy.monitoringservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ReadReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaLagMonitor.class);
+
+    private final ReadReplicaRoutingDataSource routingDataSource;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${monitoring.replica.id:1}")
+    private int replicaId;
+
+    @Autowired
+    public ReadReplicaLagMonitor(ReadReplicaRoutingDataSource routingDataSource, MeterRegistry meterRegistry) {
+        this.routingDataSource = routingDataSource;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!routingDataSource.hasReadReplica()) {
+            log.info("[REPLICA {}] No read replica configured, all queries use the primary database", replicaId);
+            return;
+        }
+
+        meterRegistry.gauge("monitoring.datasource.read-replica.lag.seconds", routingDataSource,
+                ReadReplicaRoutingDataSource::getReadReplicaLagSeconds);
+        meterRegistry.gauge("monitoring.datasource.read-replica.usable", routingDataSource,
+                source -> source.isReadReplicaUsable() ? 1.0 : 0.0);
+        checkLag();
+    }
+
+    @Scheduled(fixedDelayString = "${monitoring.datasource.read-replica.lag-check-interval-ms:2000}")
+    public void checkLag() {
+        routingDataSource.checkReadReplicaLag();
+    }
+}
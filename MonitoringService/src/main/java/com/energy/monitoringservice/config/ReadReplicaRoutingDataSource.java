@@ -0,0 +1,117 @@
+package com.energy.monitoringservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaRoutingDataSource.class);
+
+    private static final String LAG_SQL =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    public enum Target {
+        PRIMARY,
+        READ_REPLICA
+    }
+
+    private final HikariDataSource primary;
+    private final HikariDataSource readReplica;
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final double maxLagSeconds;
+
+    private volatile boolean readReplicaUsable;
+    private volatile double readReplicaLagSeconds = -1;
+
+    public ReadReplicaRoutingDataSource(HikariDataSource primary, HikariDataSource readReplica, double maxLagSeconds) {
+        this.primary = primary;
+        this.readReplica = readReplica;
+        this.replicaJdbcTemplate = readReplica != null ? new JdbcTemplate(readReplica) : null;
+        this.maxLagSeconds = maxLagSeconds;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Target.PRIMARY, primary);
+        if (readReplica != null) {
+            targets.put(Target.READ_REPLICA, readReplica);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    public static <T> T usePrimary(Supplier<T> action) {
+        boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            FORCE_PRIMARY.set(previous);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (readReplicaUsable && !FORCE_PRIMARY.get() && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Target.READ_REPLICA;
+        }
+        return Target.PRIMARY;
+    }
+
+    public boolean hasReadReplica() {
+        return readReplica != null;
+    }
+
+    public boolean isReadReplicaUsable() {
+        return readReplicaUsable;
+    }
+
+    public double getReadReplicaLagSeconds() {
+        return readReplicaLagSeconds;
+    }
+
+    public void checkReadReplicaLag() {
+        if (readReplica == null) {
+            return;
+        }
+
+        boolean usable;
+        try {
+            Double lag = replicaJdbcTemplate.queryForObject(LAG_SQL, Double.class);
+            readReplicaLagSeconds = lag != null ? lag : 0;
+            usable = readReplicaLagSeconds <= maxLagSeconds;
+        } catch (Exception e) {
+            readReplicaLagSeconds = -1;
+            usable = false;
+            if (readReplicaUsable) {
+                log.warn("Read replica check failed: {}", e.getMessage());
+            }
+        }
+
+        if (usable != readReplicaUsable) {
+            readReplicaUsable = usable;
+            if (usable) {
+                log.info("Read replica is {}s behind, routing read-only transactions to it", readReplicaLagSeconds);
+            } else {
+                log.warn("Read replica is unavailable or {}s behind (max {}s), routing reads to the primary",
+                        readReplicaLagSeconds, maxLagSeconds);
+            }
+        }
+    }
+
+    public void close() {
+        if (readReplica != null) {
+            readReplica.close();
+        }
+        primary.close();
+    }
+}
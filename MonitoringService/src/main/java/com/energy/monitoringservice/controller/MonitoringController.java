@@ -1,22 +1,63 @@
 package com.energy.monitoringservice.controller;
 
+import com.energy.monitoringservice.config.ReadReplicaRoutingDataSource;
+import com.energy.monitoringservice.dto.AggregationResultDTO;
+import com.energy.monitoringservice.dto.ColumnarSeriesDTO;
+import com.energy.monitoringservice.dto.MeasurementPageDTO;
+import com.energy.monitoringservice.entity.DailyEnergyConsumption;
+import com.energy.monitoringservice.entity.DeviceStats;
 import com.energy.monitoringservice.entity.HourlyEnergyConsumption;
+import com.energy.monitoringservice.entity.MonthlyEnergyConsumption;
 import com.energy.monitoringservice.entity.SensorMeasurement;
+import com.energy.monitoringservice.entity.WeeklyEnergyConsumption;
+import com.energy.monitoringservice.repository.AggregationQueryRepository;
+import com.energy.monitoringservice.repository.DailyConsumptionRepository;
+import com.energy.monitoringservice.repository.DeviceStatsRepository;
+import com.energy.monitoringservice.repository.HourlyConsumptionBatchRepository;
 import com.energy.monitoringservice.repository.HourlyConsumptionRepository;
-import com.energy.monitoringservice.repository.SensorMeasurementRepository;
+import com.energy.monitoringservice.repository.MonthlyConsumptionRepository;
+import com.energy.monitoringservice.repository.WeeklyConsumptionRepository;
+import com.energy.monitoringservice.service.AggregationQueryService;
+import com.energy.monitoringservice.service.DailyConsumptionCache;
+import com.energy.monitoringservice.service.DeviceDayVersions;
+import com.energy.monitoringservice.service.DeviceRegistry;
+import com.energy.monitoringservice.service.MeasurementReader;
+import com.energy.monitoringservice.service.TimeSeriesDownsampler;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/monitoring")
@@ -25,25 +66,100 @@ public class MonitoringController {
 
     private static final Logger log = LoggerFactory.getLogger(MonitoringController.class);
 
+    private static final MediaType COLUMNAR_JSON = MediaType.parseMediaType("application/vnd.energy.columnar+json");
+
     private final HourlyConsumptionRepository consumptionRepository;
-    private final SensorMeasurementRepository measurementRepository;
+    private final MeasurementReader measurementReader;
+    private final DailyConsumptionRepository dailyRepository;
+    private final WeeklyConsumptionRepository weeklyRepository;
+    private final MonthlyConsumptionRepository monthlyRepository;
+    private final DeviceStatsRepository deviceStatsRepository;
+    private final DailyConsumptionCache dailyConsumptionCache;
+    private final HourlyConsumptionBatchRepository hourlyBatchRepository;
+    private final DeviceRegistry deviceRegistry;
+    private final AggregationQueryService aggregationQueryService;
+    private final DeviceDayVersions dayVersions;
+    private final ObjectMapper objectMapper;
+
+    @Value("${monitoring.export.max-page-size:10000}")
+    private int maxPageSize;
+
+    @Value("${monitoring.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    @Value("${monitoring.batch-query.max-devices:200}")
+    private int maxBatchDevices;
+
+    @Value("${monitoring.downsample.max-points:5000}")
+    private int maxDownsamplePoints;
+
+    @Value("${monitoring.http-cache.etag-grace-seconds:300}")
+    private long etagGraceSeconds;
+
+    @Value("${monitoring.http-cache.sealed-after-seconds:86400}")
+    private long sealedAfterSeconds;
+
+    @Value("${monitoring.http-cache.sealed-max-age-seconds:3600}")
+    private long sealedMaxAgeSeconds;
 
     public MonitoringController(HourlyConsumptionRepository consumptionRepository,
-                                SensorMeasurementRepository measurementRepository) {
+                                MeasurementReader measurementReader,
+                                DailyConsumptionRepository dailyRepository,
+                                WeeklyConsumptionRepository weeklyRepository,
+                                MonthlyConsumptionRepository monthlyRepository,
+                                DeviceStatsRepository deviceStatsRepository,
+                                DailyConsumptionCache dailyConsumptionCache,
+                                HourlyConsumptionBatchRepository hourlyBatchRepository,
+                                DeviceRegistry deviceRegistry,
+                                AggregationQueryService aggregationQueryService,
+                                DeviceDayVersions dayVersions,
+                                ObjectMapper objectMapper) {
         this.consumptionRepository = consumptionRepository;
-        this.measurementRepository = measurementRepository;
+        this.measurementReader = measurementReader;
+        this.dailyRepository = dailyRepository;
+        this.weeklyRepository = weeklyRepository;
+        this.monthlyRepository = monthlyRepository;
+        this.deviceStatsRepository = deviceStatsRepository;
+        this.dailyConsumptionCache = dailyConsumptionCache;
+        this.hourlyBatchRepository = hourlyBatchRepository;
+        this.deviceRegistry = deviceRegistry;
+        this.aggregationQueryService = aggregationQueryService;
+        this.dayVersions = dayVersions;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/device/{deviceId}/daily")
-    public ResponseEntity<List<HourlyEnergyConsumption>> getDailyConsumption(
+    public ResponseEntity<?> getDailyConsumption(
             @PathVariable UUID deviceId,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            ServletWebRequest webRequest) {
 
         LocalDateTime startOfDay = date.atStartOfDay();
         LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
+        boolean columnar = wantsColumnar(format, accept);
+
+        DeviceDayVersions.Version version = validatedVersion(deviceId, date, webRequest);
+        if (isNotModified(version, "daily-" + (columnar ? "columnar" : "json"), webRequest)) {
+            log.info("GET /device/{}/daily?date={} - Not modified", deviceId, date);
+            return null;
+        }
+
+        if (columnar) {
+            ColumnarSeriesDTO series = ColumnarSeriesDTO.of(deviceId, readConsistentWith(version,
+                    () -> consumptionRepository.findSeries(deviceId, startOfDay, endOfDay)));
 
-        List<HourlyEnergyConsumption> data = consumptionRepository
-                .findByDeviceIdAndHourBetween(deviceId, startOfDay, endOfDay);
+            log.info("GET /device/{}/daily?date={} - Returned {} hourly records (columnar)",
+                    deviceId, date, series.getTimestamps().length);
+
+            return ResponseEntity.ok().contentType(COLUMNAR_JSON).body(series);
+        }
+
+        List<HourlyEnergyConsumption> data = dailyConsumptionCache.get(deviceId, date,
+                version != null ? version.getTag() : null,
+                () -> readConsistentWith(version,
+                        () -> consumptionRepository.findByDeviceIdAndHourBetween(deviceId, startOfDay, endOfDay)));
 
         log.info("GET /device/{}/daily?date={} - Returned {} hourly records",
                 deviceId, date, data.size());
@@ -51,16 +167,111 @@ public class MonitoringController {
         return ResponseEntity.ok(data);
     }
 
+    @GetMapping("/devices/daily")
+    public ResponseEntity<Map<UUID, List<HourlyEnergyConsumption>>> getDailyConsumptionForDevices(
+            @RequestParam(required = false) Set<UUID> deviceIds,
+            @RequestParam(required = false) UUID userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        Set<UUID> devices = new TreeSet<>();
+        if (deviceIds != null) {
+            devices.addAll(deviceIds);
+        }
+        if (userId != null) {
+            devices.addAll(deviceRegistry.findByUser(userId));
+        }
+        if ((devices.isEmpty() && userId == null) || devices.size() > maxBatchDevices || to.isBefore(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Map<UUID, List<HourlyEnergyConsumption>> grouped = new LinkedHashMap<>();
+        devices.forEach(deviceId -> grouped.put(deviceId, new ArrayList<>()));
+        List<HourlyEnergyConsumption> data = hourlyBatchRepository
+                .findForDevices(devices, from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        data.forEach(row -> grouped.get(row.getDeviceId()).add(row));
+
+        log.info("GET /devices/daily?from={}&to={} - Returned {} hourly records for {} devices",
+                from, to, data.size(), devices.size());
+
+        return ResponseEntity.ok(grouped);
+    }
+
+    @GetMapping("/device/{deviceId}/consumption/daily")
+    public ResponseEntity<List<DailyEnergyConsumption>> getDailyRollups(
+            @PathVariable UUID deviceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        List<DailyEnergyConsumption> data = dailyRepository
+                .findByDeviceIdAndPeriodStartBetweenOrderByPeriodStartAsc(deviceId, from, to);
+
+        log.info("GET /device/{}/consumption/daily?from={}&to={} - Returned {} daily records",
+                deviceId, from, to, data.size());
+
+        return ResponseEntity.ok(data);
+    }
+
+    @GetMapping("/device/{deviceId}/consumption/weekly")
+    public ResponseEntity<List<WeeklyEnergyConsumption>> getWeeklyRollups(
+            @PathVariable UUID deviceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        List<WeeklyEnergyConsumption> data = weeklyRepository
+                .findByDeviceIdAndPeriodStartBetweenOrderByPeriodStartAsc(deviceId, from.with(DayOfWeek.MONDAY), to);
+
+        log.info("GET /device/{}/consumption/weekly?from={}&to={} - Returned {} weekly records",
+                deviceId, from, to, data.size());
+
+        return ResponseEntity.ok(data);
+    }
+
+    @GetMapping("/device/{deviceId}/consumption/monthly")
+    public ResponseEntity<List<MonthlyEnergyConsumption>> getMonthlyRollups(
+            @PathVariable UUID deviceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        List<MonthlyEnergyConsumption> data = monthlyRepository
+                .findByDeviceIdAndPeriodStartBetweenOrderByPeriodStartAsc(deviceId, from.withDayOfMonth(1), to);
+
+        log.info("GET /device/{}/consumption/monthly?from={}&to={} - Returned {} monthly records",
+                deviceId, from, to, data.size());
+
+        return ResponseEntity.ok(data);
+    }
+
     @GetMapping("/device/{deviceId}/measurements")
-    public ResponseEntity<List<SensorMeasurement>> getIndividualMeasurements(
+    public ResponseEntity<?> getIndividualMeasurements(
             @PathVariable UUID deviceId,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            ServletWebRequest webRequest) {
+
+        boolean columnar = wantsColumnar(format, accept);
+        DeviceDayVersions.Version version = validatedVersion(deviceId, date, webRequest);
+        if (isNotModified(version, "measurements-" + (columnar ? "columnar" : "json"), webRequest)) {
+            log.info("GET /device/{}/measurements?date={} - Not modified", deviceId, date);
+            return null;
+        }
 
         LocalDateTime startOfDay = date.atStartOfDay();
-        LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
+        LocalDateTime endOfDay = date.plusDays(1).atStartOfDay();
+
+        if (columnar) {
+            ColumnarSeriesDTO series = ColumnarSeriesDTO.of(deviceId, readConsistentWith(version,
+                    () -> measurementReader.findSeries(deviceId, startOfDay, endOfDay, exportFetchSize)));
 
-        List<SensorMeasurement> data = measurementRepository
-                .findByDeviceIdAndTimestampBetween(deviceId, startOfDay, endOfDay);
+            log.info("GET /device/{}/measurements?date={} - Returned {} individual measurements (columnar)",
+                    deviceId, date, series.getTimestamps().length);
+
+            return ResponseEntity.ok().contentType(COLUMNAR_JSON).body(series);
+        }
+
+        List<SensorMeasurement> data = readConsistentWith(version,
+                () -> measurementReader.findRange(deviceId, startOfDay, endOfDay, exportFetchSize));
 
         log.info("GET /device/{}/measurements?date={} - Returned {} individual measurements",
                 deviceId, date, data.size());
@@ -68,32 +279,196 @@ public class MonitoringController {
         return ResponseEntity.ok(data);
     }
 
+    @GetMapping("/device/{deviceId}/measurements/downsampled")
+    public ResponseEntity<ColumnarSeriesDTO> getDownsampledMeasurements(
+            @PathVariable UUID deviceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "500") int points,
+            @RequestParam(defaultValue = "LTTB") TimeSeriesDownsampler.Mode mode) {
+
+        if (!to.isAfter(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        int maxPoints = Math.max(3, Math.min(points, maxDownsamplePoints));
+        TimeSeriesDownsampler downsampler = TimeSeriesDownsampler.create(mode,
+                from.toEpochSecond(ZoneOffset.UTC), to.toEpochSecond(ZoneOffset.UTC), maxPoints);
+
+        long[] scanned = {0};
+        measurementReader.forEach(deviceId, from, to, exportFetchSize, measurement -> {
+            downsampler.add(measurement.getTimestamp().toEpochSecond(ZoneOffset.UTC), measurement.getMeasurementValue());
+            scanned[0]++;
+        });
+        ColumnarSeriesDTO series = downsampler.finish(deviceId);
+
+        log.info("GET /device/{}/measurements/downsampled?from={}&to={}&points={}&mode={} - Reduced {} measurements to {} points",
+                deviceId, from, to, maxPoints, mode, scanned[0], series.getTimestamps().length);
+
+        return ResponseEntity.ok(series);
+    }
+
+    @GetMapping("/device/{deviceId}/aggregate")
+    public ResponseEntity<AggregationResultDTO> getAggregatedMeasurements(
+            @PathVariable UUID deviceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "1h") String bucket,
+            @RequestParam(defaultValue = "SUM") AggregationQueryRepository.Function function,
+            @RequestParam(required = false) AggregationQueryRepository.Source source) {
+
+        AggregationResultDTO result;
+        try {
+            result = aggregationQueryService.aggregate(deviceId, from, to, bucket, function, source);
+        } catch (IllegalArgumentException e) {
+            log.warn("GET /device/{}/aggregate rejected: {}", deviceId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+
+        log.info("GET /device/{}/aggregate?from={}&to={}&bucket={}&function={} - Returned {} buckets from {}",
+                deviceId, from, to, bucket, function, result.getTimestamps().length, result.getSources());
+
+        return ResponseEntity.ok(result);
+    }
+
     @GetMapping("/device/{deviceId}/stats")
     public ResponseEntity<Map<String, Object>> getDeviceStats(@PathVariable UUID deviceId) {
 
-        long totalMeasurements = measurementRepository.countByDeviceId(deviceId);
-        long totalHours = consumptionRepository.count();
+        DeviceStats deviceStats = deviceStatsRepository.findById(deviceId).orElse(null);
 
         Map<String, Object> stats = new HashMap<>();
         stats.put("deviceId", deviceId);
-        stats.put("totalMeasurements", totalMeasurements);
-        stats.put("totalHourlyRecords", totalHours);
+        stats.put("totalMeasurements", deviceStats != null ? deviceStats.getMeasurementCount() : 0L);
+        stats.put("firstMeasurement", deviceStats != null ? deviceStats.getFirstTimestamp() : null);
+        stats.put("lastMeasurement", deviceStats != null ? deviceStats.getLastTimestamp() : null);
+        stats.put("lifetimeConsumption", deviceStats != null ? deviceStats.getLifetimeConsumption() : 0.0);
+        stats.put("peakHour", deviceStats != null ? deviceStats.getPeakHour() : null);
+        stats.put("peakHourConsumption", deviceStats != null ? deviceStats.getPeakHourConsumption() : null);
 
-        log.info("GET /device/{}/stats - Total measurements: {}, Total hours: {}",
-                deviceId, totalMeasurements, totalHours);
+        log.info("GET /device/{}/stats - Total measurements: {}", deviceId, stats.get("totalMeasurements"));
 
         return ResponseEntity.ok(stats);
     }
 
     @GetMapping("/device/{deviceId}/all-measurements")
-    public ResponseEntity<List<SensorMeasurement>> getAllMeasurements(@PathVariable UUID deviceId) {
+    public ResponseEntity<StreamingResponseBody> getAllMeasurements(@PathVariable UUID deviceId) {
 
-        List<SensorMeasurement> data = measurementRepository
-                .findByDeviceIdOrderByTimestampAsc(deviceId);
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            writer.write('[');
 
-        log.info("GET /device/{}/all-measurements - Returned {} measurements",
-                deviceId, data.size());
+            long[] rows = {0};
+            measurementReader.forEach(deviceId, null, null, exportFetchSize, measurement -> {
+                try {
+                    if (rows[0] > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(objectMapper.writeValueAsString(measurement));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+            writer.write(']');
+            writer.flush();
 
-        return ResponseEntity.ok(data);
+            log.info("GET /device/{}/all-measurements - Streamed {} measurements", deviceId, rows[0]);
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @GetMapping("/device/{deviceId}/all-measurements/page")
+    public ResponseEntity<MeasurementPageDTO> getMeasurementPage(
+            @PathVariable UUID deviceId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime after,
+            @RequestParam(defaultValue = "1000") int limit) {
+
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        List<SensorMeasurement> data = measurementReader.findPage(deviceId, after, pageSize);
+
+        LocalDateTime nextCursor = data.size() == pageSize ? data.get(data.size() - 1).getTimestamp() : null;
+
+        log.info("GET /device/{}/all-measurements/page?after={}&limit={} - Returned {} measurements",
+                deviceId, after, pageSize, data.size());
+
+        return ResponseEntity.ok(new MeasurementPageDTO(data, nextCursor));
+    }
+
+    @GetMapping("/device/{deviceId}/all-measurements/export")
+    public ResponseEntity<StreamingResponseBody> exportAllMeasurements(
+            @PathVariable UUID deviceId,
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            if (csv) {
+                writer.write("id,device_id,timestamp,measurement_value,created_at\n");
+            }
+
+            long[] rows = {0};
+            measurementReader.forEach(deviceId, null, null, exportFetchSize, measurement -> {
+                try {
+                    if (csv) {
+                        writer.write(measurement.getId() + "," + measurement.getDeviceId() + "," +
+                                measurement.getTimestamp() + "," + measurement.getMeasurementValue() + "," +
+                                measurement.getCreatedAt() + "\n");
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(measurement));
+                        writer.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+            writer.flush();
+
+            log.info("GET /device/{}/all-measurements/export?format={} - Streamed {} measurements",
+                    deviceId, format, rows[0]);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(csv ? MediaType.parseMediaType("text/csv") : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"measurements-" + deviceId + (csv ? ".csv" : ".ndjson") + "\"")
+                .body(body);
+    }
+
+    private DeviceDayVersions.Version validatedVersion(UUID deviceId, LocalDate date, ServletWebRequest webRequest) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime endOfDay = date.plusDays(1).atStartOfDay();
+        if (webRequest.getResponse() == null || endOfDay.plusSeconds(etagGraceSeconds).isAfter(now)) {
+            return null;
+        }
+
+        CacheControl cacheControl = endOfDay.plusSeconds(sealedAfterSeconds).isBefore(now)
+                ? CacheControl.maxAge(sealedMaxAgeSeconds, TimeUnit.SECONDS).cachePrivate()
+                : CacheControl.noCache().cachePrivate();
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        webRequest.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+
+        return ReadReplicaRoutingDataSource.usePrimary(() -> dayVersions.versionOf(deviceId, date)).orElse(null);
+    }
+
+    private boolean isNotModified(DeviceDayVersions.Version version, String variant, ServletWebRequest webRequest) {
+        return version != null && webRequest.checkNotModified(dayVersions.etag(version, variant), version.getTimestamp());
+    }
+
+    private static <T> T readConsistentWith(DeviceDayVersions.Version version, Supplier<T> query) {
+        return version != null ? ReadReplicaRoutingDataSource.usePrimary(query) : query.get();
+    }
+
+    private static boolean wantsColumnar(String format, String accept) {
+        if (format != null) {
+            return "columnar".equalsIgnoreCase(format);
+        }
+        return accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(type -> type.equalsTypeAndSubtype(COLUMNAR_JSON));
     }
-}
\ No newline at end of file
+}
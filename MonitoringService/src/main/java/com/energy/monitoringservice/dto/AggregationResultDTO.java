@@ -0,0 +1,75 @@
+package com.energy.monitoringservice.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+public class AggregationResultDTO {
+
+    private UUID deviceId;
+    private String bucket;
+    private String function;
+    private List<String> sources;
+    private long[] timestamps;
+    private double[] values;
+
+    public AggregationResultDTO() {
+    }
+
+    public AggregationResultDTO(UUID deviceId, String bucket, String function, List<String> sources,
+                                long[] timestamps, double[] values) {
+        this.deviceId = deviceId;
+        this.bucket = bucket;
+        this.function = function;
+        this.sources = sources;
+        this.timestamps = timestamps;
+        this.values = values;
+    }
+
+    public UUID getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(UUID deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(String bucket) {
+        this.bucket = bucket;
+    }
+
+    public String getFunction() {
+        return function;
+    }
+
+    public void setFunction(String function) {
+        this.function = function;
+    }
+
+    public List<String> getSources() {
+        return sources;
+    }
+
+    public void setSources(List<String> sources) {
+        this.sources = sources;
+    }
+
+    public long[] getTimestamps() {
+        return timestamps;
+    }
+
+    public void setTimestamps(long[] timestamps) {
+        this.timestamps = timestamps;
+    }
+
+    public double[] getValues() {
+        return values;
+    }
+
+    public void setValues(double[] values) {
+        this.values = values;
+    }
+}
@@ -0,0 +1,55 @@
+package com.energy.monitoringservice.dto;
+
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+public class ColumnarSeriesDTO {
+
+    private UUID deviceId;
+    private long[] timestamps;
+    private double[] values;
+
+    public ColumnarSeriesDTO() {
+    }
+
+    public ColumnarSeriesDTO(UUID deviceId, long[] timestamps, double[] values) {
+        this.deviceId = deviceId;
+        this.timestamps = timestamps;
+        this.values = values;
+    }
+
+    public static ColumnarSeriesDTO of(UUID deviceId, List<TimeValueDTO> points) {
+        long[] timestamps = new long[points.size()];
+        double[] values = new double[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            timestamps[i] = points.get(i).getTimestamp().toEpochSecond(ZoneOffset.UTC);
+            values[i] = points.get(i).getValue();
+        }
+        return new ColumnarSeriesDTO(deviceId, timestamps, values);
+    }
+
+    public UUID getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(UUID deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public long[] getTimestamps() {
+        return timestamps;
+    }
+
+    public void setTimestamps(long[] timestamps) {
+        this.timestamps = timestamps;
+    }
+
+    public double[] getValues() {
+        return values;
+    }
+
+    public void setValues(double[] values) {
+        this.values = values;
+    }
+}
@@ -0,0 +1,31 @@
+package com.energy.monitoringservice.dto;
+
+public class DrainAckDTO {
+
+    private int replicaId;
+    private long token;
+
+    public DrainAckDTO() {
+    }
+
+    public DrainAckDTO(int replicaId, long token) {
+        this.replicaId = replicaId;
+        this.token = token;
+    }
+
+    public int getReplicaId() {
+        return replicaId;
+    }
+
+    public void setReplicaId(int replicaId) {
+        this.replicaId = replicaId;
+    }
+
+    public long getToken() {
+        return token;
+    }
+
+    public void setToken(long token) {
+        this.token = token;
+    }
+}
@@ -0,0 +1,87 @@
+package com.energy.monitoringservice.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public class HourlyAggregateDTO {
+
+    private UUID deviceId;
+    private LocalDateTime hour;
+    private double totalConsumption;
+    private int measurementCount;
+    private double minMeasurement;
+    private double maxMeasurement;
+
+    public HourlyAggregateDTO() {
+    }
+
+    public HourlyAggregateDTO(UUID deviceId, LocalDateTime hour, double totalConsumption,
+                              int measurementCount, double minMeasurement, double maxMeasurement) {
+        this.deviceId = deviceId;
+        this.hour = hour;
+        this.totalConsumption = totalConsumption;
+        this.measurementCount = measurementCount;
+        this.minMeasurement = minMeasurement;
+        this.maxMeasurement = maxMeasurement;
+    }
+
+    public UUID getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(UUID deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public LocalDateTime getHour() {
+        return hour;
+    }
+
+    public void setHour(LocalDateTime hour) {
+        this.hour = hour;
+    }
+
+    public double getTotalConsumption() {
+        return totalConsumption;
+    }
+
+    public void setTotalConsumption(double totalConsumption) {
+        this.totalConsumption = totalConsumption;
+    }
+
+    public int getMeasurementCount() {
+        return measurementCount;
+    }
+
+    public void setMeasurementCount(int measurementCount) {
+        this.measurementCount = measurementCount;
+    }
+
+    public double getMinMeasurement() {
+        return minMeasurement;
+    }
+
+    public void setMinMeasurement(double minMeasurement) {
+        this.minMeasurement = minMeasurement;
+    }
+
+    public double getMaxMeasurement() {
+        return maxMeasurement;
+    }
+
+    public void setMaxMeasurement(double maxMeasurement) {
+        this.maxMeasurement = maxMeasurement;
+    }
+
+    @Override
+    public String toString() {
+        return "HourlyAggregateDTO{" +
+                "deviceId=" + deviceId +
+                ", hour=" + hour +
+                ", totalConsumption=" + totalConsumption +
+                ", measurementCount=" + measurementCount +
+                ", minMeasurement=" + minMeasurement +
+                ", maxMeasurement=" + maxMeasurement +
+                '}';
+    }
+}
@@ -0,0 +1,36 @@
+package com.energy.monitoringservice.dto;
+
+import com.energy.monitoringservice.entity.SensorMeasurement;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class MeasurementPageDTO {
+
+    private List<SensorMeasurement> items;
+    private LocalDateTime nextCursor;
+
+    public MeasurementPageDTO() {
+    }
+
+    public MeasurementPageDTO(List<SensorMeasurement> items, LocalDateTime nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<SensorMeasurement> getItems() {
+        return items;
+    }
+
+    public void setItems(List<SensorMeasurement> items) {
+        this.items = items;
+    }
+
+    public LocalDateTime getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(LocalDateTime nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
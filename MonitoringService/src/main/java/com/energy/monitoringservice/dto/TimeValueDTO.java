@@ -0,0 +1,22 @@
+package com.energy.monitoringservice.dto;
+
+import java.time.LocalDateTime;
+
+public class TimeValueDTO {
+
+    private final LocalDateTime timestamp;
+    private final double value;
+
+    public TimeValueDTO(LocalDateTime timestamp, Double value) {
+        this.timestamp = timestamp;
+        this.value = value;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public double getValue() {
+        return value;
+    }
+}
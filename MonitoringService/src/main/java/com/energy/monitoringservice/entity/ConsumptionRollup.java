@@ -0,0 +1,121 @@
+package com.energy.monitoringservice.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@MappedSuperclass
+public abstract class ConsumptionRollup implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "consumption_rollup_seq")
+    @SequenceGenerator(name = "consumption_rollup_seq", sequenceName = "consumption_rollup_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "device_id", nullable = false)
+    @JdbcTypeCode(SqlTypes.UUID)
+    private UUID deviceId;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Column(name = "total_consumption", nullable = false)
+    private Double totalConsumption;
+
+    @Column(name = "measurement_count", nullable = false)
+    private Long measurementCount;
+
+    @Column(name = "min_measurement")
+    private Double minMeasurement;
+
+    @Column(name = "max_measurement")
+    private Double maxMeasurement;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public UUID getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(UUID deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public void setPeriodStart(LocalDate periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public Double getTotalConsumption() {
+        return totalConsumption;
+    }
+
+    public void setTotalConsumption(Double totalConsumption) {
+        this.totalConsumption = totalConsumption;
+    }
+
+    public Long getMeasurementCount() {
+        return measurementCount;
+    }
+
+    public void setMeasurementCount(Long measurementCount) {
+        this.measurementCount = measurementCount;
+    }
+
+    public Double getMinMeasurement() {
+        return minMeasurement;
+    }
+
+    public void setMinMeasurement(Double minMeasurement) {
+        this.minMeasurement = minMeasurement;
+    }
+
+    public Double getMaxMeasurement() {
+        return maxMeasurement;
+    }
+
+    public void setMaxMeasurement(Double maxMeasurement) {
+        this.maxMeasurement = maxMeasurement;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "id=" + id +
+                ", deviceId=" + deviceId +
+                ", periodStart=" + periodStart +
+                ", totalConsumption=" + totalConsumption +
+                ", measurementCount=" + measurementCount +
+                ", minMeasurement=" + minMeasurement +
+                ", maxMeasurement=" + maxMeasurement +
+                ", updatedAt=" + updatedAt +
+                '}';
+    }
+}
@@ -0,0 +1,15 @@
+package com.energy.monitoringservice.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+@Entity
+@Table(name = "daily_energy_consumption",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_daily_device_period", columnNames = {"device_id", "period_start"})
+        })
+public class DailyEnergyConsumption extends ConsumptionRollup {
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,91 @@
+package com.energy.monitoringservice.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "device_day_versions",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_device_day_version_device_day", columnNames = {"device_id", "day"})
+        })
+public class DeviceDayVersion implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "device_day_versions_seq")
+    @SequenceGenerator(name = "device_day_versions_seq", sequenceName = "device_day_versions_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "device_id", nullable = false)
+    @JdbcTypeCode(SqlTypes.UUID)
+    private UUID deviceId;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private Long version;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public DeviceDayVersion() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public UUID getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(UUID deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "DeviceDayVersion{" +
+                "deviceId=" + deviceId +
+                ", day=" + day +
+                ", version=" + version +
+                ", updatedAt=" + updatedAt +
+                '}';
+    }
+}
@@ -0,0 +1,123 @@
+package com.energy.monitoringservice.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "device_stats")
+public class DeviceStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @JdbcTypeCode(SqlTypes.UUID)
+    @Column(name = "device_id")
+    private UUID deviceId;
+
+    @Column(name = "measurement_count", nullable = false)
+    private Long measurementCount;
+
+    @Column(name = "first_timestamp")
+    private LocalDateTime firstTimestamp;
+
+    @Column(name = "last_timestamp")
+    private LocalDateTime lastTimestamp;
+
+    @Column(name = "lifetime_consumption", nullable = false)
+    private Double lifetimeConsumption;
+
+    @Column(name = "peak_hour")
+    private LocalDateTime peakHour;
+
+    @Column(name = "peak_hour_consumption")
+    private Double peakHourConsumption;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public DeviceStats() {
+    }
+
+    public UUID getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(UUID deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public Long getMeasurementCount() {
+        return measurementCount;
+    }
+
+    public void setMeasurementCount(Long measurementCount) {
+        this.measurementCount = measurementCount;
+    }
+
+    public LocalDateTime getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    public void setFirstTimestamp(LocalDateTime firstTimestamp) {
+        this.firstTimestamp = firstTimestamp;
+    }
+
+    public LocalDateTime getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public void setLastTimestamp(LocalDateTime lastTimestamp) {
+        this.lastTimestamp = lastTimestamp;
+    }
+
+    public Double getLifetimeConsumption() {
+        return lifetimeConsumption;
+    }
+
+    public void setLifetimeConsumption(Double lifetimeConsumption) {
+        this.lifetimeConsumption = lifetimeConsumption;
+    }
+
+    public LocalDateTime getPeakHour() {
+        return peakHour;
+    }
+
+    public void setPeakHour(LocalDateTime peakHour) {
+        this.peakHour = peakHour;
+    }
+
+    public Double getPeakHourConsumption() {
+        return peakHourConsumption;
+    }
+
+    public void setPeakHourConsumption(Double peakHourConsumption) {
+        this.peakHourConsumption = peakHourConsumption;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "DeviceStats{" +
+                "deviceId=" + deviceId +
+                ", measurementCount=" + measurementCount +
+                ", firstTimestamp=" + firstTimestamp +
+                ", lastTimestamp=" + lastTimestamp +
+                ", lifetimeConsumption=" + lifetimeConsumption +
+                ", peakHour=" + peakHour +
+                ", peakHourConsumption=" + peakHourConsumption +
+                ", updatedAt=" + updatedAt +
+                '}';
+    }
+}
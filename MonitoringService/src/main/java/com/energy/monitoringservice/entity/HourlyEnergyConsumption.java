@@ -10,15 +10,16 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "hourly_energy_consumption",
-        indexes = {
-                @Index(name = "idx_device_hour", columnList = "device_id,hour")
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_hourly_device_hour", columnNames = {"device_id", "hour"})
         })
 public class HourlyEnergyConsumption implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hourly_energy_consumption_seq")
+    @SequenceGenerator(name = "hourly_energy_consumption_seq", sequenceName = "hourly_energy_consumption_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "device_id", nullable = false)
@@ -31,6 +32,15 @@ public class HourlyEnergyConsumption implements Serializable {
     @Column(name = "total_consumption", nullable = false)
     private Double totalConsumption;
 
+    @Column(name = "measurement_count")
+    private Integer measurementCount;
+
+    @Column(name = "min_measurement")
+    private Double minMeasurement;
+
+    @Column(name = "max_measurement")
+    private Double maxMeasurement;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -78,6 +88,30 @@ public class HourlyEnergyConsumption implements Serializable {
         this.totalConsumption = totalConsumption;
     }
 
+    public Integer getMeasurementCount() {
+        return measurementCount;
+    }
+
+    public void setMeasurementCount(Integer measurementCount) {
+        this.measurementCount = measurementCount;
+    }
+
+    public Double getMinMeasurement() {
+        return minMeasurement;
+    }
+
+    public void setMinMeasurement(Double minMeasurement) {
+        this.minMeasurement = minMeasurement;
+    }
+
+    public Double getMaxMeasurement() {
+        return maxMeasurement;
+    }
+
+    public void setMaxMeasurement(Double maxMeasurement) {
+        this.maxMeasurement = maxMeasurement;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -93,6 +127,9 @@ public class HourlyEnergyConsumption implements Serializable {
                 ", deviceId=" + deviceId +
                 ", hour=" + hour +
                 ", totalConsumption=" + totalConsumption +
+                ", measurementCount=" + measurementCount +
+                ", minMeasurement=" + minMeasurement +
+                ", maxMeasurement=" + maxMeasurement +
                 ", createdAt=" + createdAt +
                 '}';
     }
@@ -0,0 +1,128 @@
+package com.energy.monitoringservice.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "measurement_blocks",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_measurement_block_device_day", columnNames = {"device_id", "day"})
+        })
+public class MeasurementBlock implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "measurement_blocks_seq")
+    @SequenceGenerator(name = "measurement_blocks_seq", sequenceName = "measurement_blocks_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "device_id", nullable = false)
+    @JdbcTypeCode(SqlTypes.UUID)
+    private UUID deviceId;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Column(name = "point_count", nullable = false)
+    private Integer pointCount;
+
+    @Column(name = "first_timestamp", nullable = false)
+    private LocalDateTime firstTimestamp;
+
+    @Column(name = "last_timestamp", nullable = false)
+    private LocalDateTime lastTimestamp;
+
+    @Column(nullable = false)
+    private byte[] data;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public MeasurementBlock() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public UUID getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(UUID deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public Integer getPointCount() {
+        return pointCount;
+    }
+
+    public void setPointCount(Integer pointCount) {
+        this.pointCount = pointCount;
+    }
+
+    public LocalDateTime getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    public void setFirstTimestamp(LocalDateTime firstTimestamp) {
+        this.firstTimestamp = firstTimestamp;
+    }
+
+    public LocalDateTime getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public void setLastTimestamp(LocalDateTime lastTimestamp) {
+        this.lastTimestamp = lastTimestamp;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "MeasurementBlock{" +
+                "id=" + id +
+                ", deviceId=" + deviceId +
+                ", day=" + day +
+                ", pointCount=" + pointCount +
+                ", firstTimestamp=" + firstTimestamp +
+                ", lastTimestamp=" + lastTimestamp +
+                ", bytes=" + (data != null ? data.length : 0) +
+                ", updatedAt=" + updatedAt +
+                '}';
+    }
+}
@@ -10,15 +10,16 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "sensor_measurements",
-        indexes = {
-                @Index(name = "idx_sensor_device_timestamp", columnList = "device_id,timestamp")
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_sensor_device_timestamp", columnNames = {"device_id", "timestamp"})
         })
 public class SensorMeasurement implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sensor_measurements_seq")
+    @SequenceGenerator(name = "sensor_measurements_seq", sequenceName = "sensor_measurements_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "device_id", nullable = false)
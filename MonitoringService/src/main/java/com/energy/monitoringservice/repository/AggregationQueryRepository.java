@@ -0,0 +1,98 @@
+package com.energy.monitoringservice.repository;
+
+import com.energy.monitoringservice.dto.TimeValueDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public class AggregationQueryRepository {
+
+    public static final LocalDateTime BUCKET_ORIGIN = LocalDateTime.of(2000, 1, 3, 0, 0);
+    private static final String BUCKET_ORIGIN_SQL = "TIMESTAMP '2000-01-03 00:00:00'";
+
+    public enum Source {
+        RAW("sensor_measurements", "timestamp", false, Duration.ZERO),
+        HOURLY("hourly_energy_consumption", "hour", false, Duration.ofHours(1)),
+        DAILY("daily_energy_consumption", "period_start", true, Duration.ofDays(1)),
+        WEEKLY("weekly_energy_consumption", "period_start", true, Duration.ofDays(7));
+
+        private final String table;
+        private final String timeColumn;
+        private final boolean dateKeyed;
+        private final Duration granularity;
+
+        Source(String table, String timeColumn, boolean dateKeyed, Duration granularity) {
+            this.table = table;
+            this.timeColumn = timeColumn;
+            this.dateKeyed = dateKeyed;
+            this.granularity = granularity;
+        }
+
+        public Duration getGranularity() {
+            return granularity;
+        }
+    }
+
+    public enum Function {
+        SUM,
+        AVG,
+        MIN,
+        MAX
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AggregationQueryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<TimeValueDTO> aggregate(Source source, Function function, Duration bucket,
+                                        UUID deviceId, LocalDateTime start, LocalDateTime end) {
+        String timeExpression = source.dateKeyed ? source.timeColumn + "::timestamp" : source.timeColumn;
+        String sql = "SELECT date_bin(?::interval, " + timeExpression + ", " + BUCKET_ORIGIN_SQL + ") AS bucket, " +
+                aggregateExpression(source, function) + " AS value " +
+                "FROM " + source.table + " " +
+                "WHERE device_id = ? AND " + source.timeColumn + " >= ? AND " + source.timeColumn + " < ? " +
+                "GROUP BY 1 ORDER BY 1";
+
+        Object lower = source.dateKeyed ? start.toLocalDate() : start;
+        Object upper = source.dateKeyed ? end.toLocalDate() : end;
+        List<TimeValueDTO> points = new ArrayList<>();
+        jdbcTemplate.query(sql, rs -> {
+            Double value = rs.getObject(2, Double.class);
+            if (value != null) {
+                points.add(new TimeValueDTO(rs.getObject(1, LocalDateTime.class), value));
+            }
+        }, bucket.toSeconds() + " seconds", deviceId, lower, upper);
+        return points;
+    }
+
+    public LocalDateTime findClosedUntil(UUID deviceId) {
+        LocalDateTime lastHour = jdbcTemplate.queryForObject(
+                "SELECT MAX(hour) FROM hourly_energy_consumption WHERE device_id = ?", LocalDateTime.class, deviceId);
+        return lastHour != null ? lastHour.plusHours(1) : null;
+    }
+
+    private static String aggregateExpression(Source source, Function function) {
+        if (source == Source.RAW) {
+            return function.name() + "(measurement_value)";
+        }
+        switch (function) {
+            case SUM:
+                return "SUM(total_consumption)";
+            case AVG:
+                return "SUM(total_consumption) FILTER (WHERE measurement_count IS NOT NULL) " +
+                        "/ NULLIF(SUM(measurement_count), 0)";
+            case MIN:
+                return "MIN(min_measurement)";
+            default:
+                return "MAX(max_measurement)";
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.energy.monitoringservice.repository;
+
+import com.energy.monitoringservice.dto.HourlyAggregateDTO;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Repository
+public class ConsumptionRollupBatchRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsumptionRollupBatchRepository.class);
+
+    private enum Resolution {
+        DAILY("daily_energy_consumption", "day"),
+        WEEKLY("weekly_energy_consumption", "week"),
+        MONTHLY("monthly_energy_consumption", "month");
+
+        private final String table;
+        private final String truncateUnit;
+
+        Resolution(String table, String truncateUnit) {
+            this.table = table;
+            this.truncateUnit = truncateUnit;
+        }
+
+        LocalDate periodStart(LocalDateTime hour) {
+            LocalDate date = hour.toLocalDate();
+            switch (this) {
+                case WEEKLY:
+                    return date.with(DayOfWeek.MONDAY);
+                case MONTHLY:
+                    return date.withDayOfMonth(1);
+                default:
+                    return date;
+            }
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator idAllocator;
+
+    public ConsumptionRollupBatchRepository(JdbcTemplate jdbcTemplate, SequenceIdAllocator idAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+    }
+
+    @PostConstruct
+    public void backfillFromHourly() {
+        for (Resolution resolution : Resolution.values()) {
+            int inserted = jdbcTemplate.update("INSERT INTO " + resolution.table +
+                    " (id, device_id, period_start, total_consumption, measurement_count, " +
+                    "min_measurement, max_measurement, updated_at) " +
+                    "SELECT nextval('" + SequenceIdAllocator.CONSUMPTION_ROLLUP_SEQ + "'), g.* FROM (" +
+                    "SELECT device_id, date_trunc('" + resolution.truncateUnit + "', hour)::date, " +
+                    "SUM(total_consumption), SUM(COALESCE(measurement_count, 0)), " +
+                    "MIN(min_measurement), MAX(max_measurement), now()::timestamp " +
+                    "FROM hourly_energy_consumption " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM " + resolution.table + ") " +
+                    "GROUP BY 1, 2) g " +
+                    "ON CONFLICT DO NOTHING");
+            if (inserted > 0) {
+                log.info("Backfilled {} rows of {} from hourly_energy_consumption", inserted, resolution.table);
+            }
+        }
+    }
+
+    public void applyDeltas(List<HourlyAggregateDTO> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Resolution resolution : Resolution.values()) {
+            Map<UUID, Map<LocalDate, HourlyAggregateDTO>> periods = new LinkedHashMap<>();
+            for (HourlyAggregateDTO delta : deltas) {
+                LocalDate periodStart = resolution.periodStart(delta.getHour());
+                periods.computeIfAbsent(delta.getDeviceId(), id -> new LinkedHashMap<>())
+                        .merge(periodStart, atPeriod(delta, periodStart), ConsumptionRollupBatchRepository::combine);
+            }
+
+            List<HourlyAggregateDTO> rows = new ArrayList<>();
+            periods.values().forEach(byPeriod -> rows.addAll(byPeriod.values()));
+            upsert(resolution, rows, now);
+        }
+    }
+
+    public int deleteByDeviceId(UUID deviceId) {
+        int deleted = 0;
+        for (Resolution resolution : Resolution.values()) {
+            deleted += jdbcTemplate.update("DELETE FROM " + resolution.table + " WHERE device_id = ?", deviceId);
+        }
+        return deleted;
+    }
+
+    private void upsert(Resolution resolution, List<HourlyAggregateDTO> rows, LocalDateTime now) {
+        long[] ids = idAllocator.allocate(SequenceIdAllocator.CONSUMPTION_ROLLUP_SEQ, rows.size());
+        String table = resolution.table;
+
+        jdbcTemplate.batchUpdate("INSERT INTO " + table +
+                " (id, device_id, period_start, total_consumption, measurement_count, " +
+                "min_measurement, max_measurement, updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+                "ON CONFLICT (device_id, period_start) DO UPDATE SET " +
+                "total_consumption = " + table + ".total_consumption + EXCLUDED.total_consumption, " +
+                "measurement_count = " + table + ".measurement_count + EXCLUDED.measurement_count, " +
+                "min_measurement = LEAST(" + table + ".min_measurement, EXCLUDED.min_measurement), " +
+                "max_measurement = GREATEST(" + table + ".max_measurement, EXCLUDED.max_measurement), " +
+                "updated_at = EXCLUDED.updated_at", new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                HourlyAggregateDTO delta = rows.get(i);
+                ps.setLong(1, ids[i]);
+                ps.setObject(2, delta.getDeviceId());
+                ps.setObject(3, delta.getHour().toLocalDate());
+                ps.setDouble(4, delta.getTotalConsumption());
+                ps.setLong(5, delta.getMeasurementCount());
+                ps.setDouble(6, delta.getMinMeasurement());
+                ps.setDouble(7, delta.getMaxMeasurement());
+                ps.setObject(8, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    private static HourlyAggregateDTO atPeriod(HourlyAggregateDTO delta, LocalDate periodStart) {
+        return new HourlyAggregateDTO(
+                delta.getDeviceId(),
+                periodStart.atStartOfDay(),
+                delta.getTotalConsumption(),
+                delta.getMeasurementCount(),
+                delta.getMinMeasurement(),
+                delta.getMaxMeasurement()
+        );
+    }
+
+    private static HourlyAggregateDTO combine(HourlyAggregateDTO a, HourlyAggregateDTO b) {
+        return new HourlyAggregateDTO(
+                a.getDeviceId(),
+                a.getHour(),
+                a.getTotalConsumption() + b.getTotalConsumption(),
+                a.getMeasurementCount() + b.getMeasurementCount(),
+                Math.min(a.getMinMeasurement(), b.getMinMeasurement()),
+                Math.max(a.getMaxMeasurement(), b.getMaxMeasurement())
+        );
+    }
+}
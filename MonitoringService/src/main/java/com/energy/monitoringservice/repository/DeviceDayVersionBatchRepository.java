@@ -0,0 +1,83 @@
+package com.energy.monitoringservice.repository;
+
+import com.energy.monitoringservice.entity.DeviceDayVersion;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public class DeviceDayVersionBatchRepository {
+
+    private static final String BUMP_SQL =
+            "INSERT INTO device_day_versions (id, device_id, day, version, updated_at) " +
+            "SELECT k.id, k.device_id, k.day, 1, ? FROM unnest(?::int8[], ?::uuid[], ?::date[]) AS k(id, device_id, day) " +
+            "ON CONFLICT (device_id, day) DO UPDATE SET " +
+            "version = device_day_versions.version + 1, updated_at = EXCLUDED.updated_at";
+
+    private static final String FIND_SQL =
+            "SELECT id, device_id, day, version, updated_at FROM device_day_versions WHERE device_id = ? AND day = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator idAllocator;
+
+    public DeviceDayVersionBatchRepository(JdbcTemplate jdbcTemplate, SequenceIdAllocator idAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+    }
+
+    public void bump(List<Map.Entry<UUID, LocalDate>> days) {
+        if (days.isEmpty()) {
+            return;
+        }
+
+        int size = days.size();
+        long[] allocated = idAllocator.allocate(SequenceIdAllocator.DEVICE_DAY_VERSIONS_SEQ, size);
+        Long[] ids = new Long[size];
+        UUID[] deviceIds = new UUID[size];
+        Date[] dayValues = new Date[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = allocated[i];
+            deviceIds[i] = days.get(i).getKey();
+            dayValues[i] = Date.valueOf(days.get(i).getValue());
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(BUMP_SQL);
+            ps.setTimestamp(1, now);
+            ps.setArray(2, con.createArrayOf("int8", ids));
+            ps.setArray(3, con.createArrayOf("uuid", deviceIds));
+            ps.setArray(4, con.createArrayOf("date", dayValues));
+            return ps;
+        });
+    }
+
+    public Optional<DeviceDayVersion> find(UUID deviceId, LocalDate day) {
+        return jdbcTemplate.query(FIND_SQL, (rs, rowNum) -> {
+            DeviceDayVersion version = new DeviceDayVersion();
+            version.setId(rs.getLong(1));
+            version.setDeviceId(rs.getObject(2, UUID.class));
+            version.setDay(rs.getObject(3, LocalDate.class));
+            version.setVersion(rs.getLong(4));
+            version.setUpdatedAt(rs.getObject(5, LocalDateTime.class));
+            return version;
+        }, deviceId, day).stream().findFirst();
+    }
+
+    public int deleteBefore(LocalDate day) {
+        return jdbcTemplate.update("DELETE FROM device_day_versions WHERE day < ?", day);
+    }
+
+    public int deleteByDeviceId(UUID deviceId) {
+        return jdbcTemplate.update("DELETE FROM device_day_versions WHERE device_id = ?", deviceId);
+    }
+}
@@ -0,0 +1,177 @@
+package com.energy.monitoringservice.repository;
+
+import com.energy.monitoringservice.dto.HourlyAggregateDTO;
+import com.energy.monitoringservice.entity.SensorMeasurement;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+@Repository
+@DependsOn("measurementPartitionManager")
+public class DeviceStatsBatchRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceStatsBatchRepository.class);
+
+    private static final String BACKFILL_SQL =
+            "INSERT INTO device_stats (device_id, measurement_count, first_timestamp, last_timestamp, " +
+            "lifetime_consumption, peak_hour, peak_hour_consumption, updated_at) " +
+            "SELECT m.device_id, m.cnt, m.first_ts, m.last_ts, m.total, p.hour, p.total_consumption, now()::timestamp " +
+            "FROM (SELECT device_id, COUNT(*) AS cnt, MIN(timestamp) AS first_ts, MAX(timestamp) AS last_ts, " +
+            "SUM(measurement_value) AS total FROM sensor_measurements GROUP BY device_id) m " +
+            "LEFT JOIN (SELECT DISTINCT ON (device_id) device_id, hour, total_consumption " +
+            "FROM hourly_energy_consumption ORDER BY device_id, total_consumption DESC) p ON p.device_id = m.device_id " +
+            "WHERE NOT EXISTS (SELECT 1 FROM device_stats) " +
+            "ON CONFLICT DO NOTHING";
+
+    private static final String RECORD_MEASUREMENTS_SQL =
+            "INSERT INTO device_stats (device_id, measurement_count, first_timestamp, last_timestamp, " +
+            "lifetime_consumption, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (device_id) DO UPDATE SET " +
+            "measurement_count = device_stats.measurement_count + EXCLUDED.measurement_count, " +
+            "first_timestamp = LEAST(device_stats.first_timestamp, EXCLUDED.first_timestamp), " +
+            "last_timestamp = GREATEST(device_stats.last_timestamp, EXCLUDED.last_timestamp), " +
+            "lifetime_consumption = device_stats.lifetime_consumption + EXCLUDED.lifetime_consumption, " +
+            "updated_at = EXCLUDED.updated_at";
+
+    private static final String RECORD_PEAK_SQL =
+            "UPDATE device_stats SET peak_hour = ?, peak_hour_consumption = ? " +
+            "WHERE device_id = ? AND (peak_hour_consumption IS NULL OR peak_hour_consumption < ? OR peak_hour = ?)";
+
+    private static final String RECOMPUTE_PEAK_SQL =
+            "UPDATE device_stats s SET peak_hour = p.hour, peak_hour_consumption = p.total_consumption " +
+            "FROM (SELECT hour, total_consumption FROM hourly_energy_consumption WHERE device_id = ? " +
+            "ORDER BY total_consumption DESC, hour LIMIT 1) p " +
+            "WHERE s.device_id = ? AND s.peak_hour = ? AND s.peak_hour_consumption > ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DeviceStatsBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void backfill() {
+        int inserted = jdbcTemplate.update(BACKFILL_SQL);
+        if (inserted > 0) {
+            log.info("Backfilled device_stats for {} devices", inserted);
+        }
+    }
+
+    public void recordMeasurements(List<SensorMeasurement> measurements) {
+        if (measurements.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, DeviceDelta> byDevice = new TreeMap<>();
+        for (SensorMeasurement measurement : measurements) {
+            byDevice.computeIfAbsent(measurement.getDeviceId(), id -> new DeviceDelta())
+                    .add(measurement.getTimestamp(), measurement.getMeasurementValue());
+        }
+
+        List<Map.Entry<UUID, DeviceDelta>> rows = new ArrayList<>(byDevice.entrySet());
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(RECORD_MEASUREMENTS_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                DeviceDelta delta = rows.get(i).getValue();
+                ps.setObject(1, rows.get(i).getKey());
+                ps.setLong(2, delta.count);
+                ps.setObject(3, delta.first);
+                ps.setObject(4, delta.last);
+                ps.setDouble(5, delta.total);
+                ps.setObject(6, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    public void recordClosedHours(List<HourlyAggregateDTO> aggregates) {
+        if (aggregates.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(RECOMPUTE_PEAK_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                HourlyAggregateDTO aggregate = aggregates.get(i);
+                ps.setObject(1, aggregate.getDeviceId());
+                ps.setObject(2, aggregate.getDeviceId());
+                ps.setObject(3, aggregate.getHour());
+                ps.setDouble(4, aggregate.getTotalConsumption());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return aggregates.size();
+            }
+        });
+
+        Map<UUID, HourlyAggregateDTO> peaks = new TreeMap<>();
+        for (HourlyAggregateDTO aggregate : aggregates) {
+            peaks.merge(aggregate.getDeviceId(), aggregate,
+                    (a, b) -> a.getTotalConsumption() >= b.getTotalConsumption() ? a : b);
+        }
+        if (peaks.isEmpty()) {
+            return;
+        }
+
+        List<HourlyAggregateDTO> rows = new ArrayList<>(peaks.values());
+        jdbcTemplate.batchUpdate(RECORD_PEAK_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                HourlyAggregateDTO peak = rows.get(i);
+                ps.setObject(1, peak.getHour());
+                ps.setDouble(2, peak.getTotalConsumption());
+                ps.setObject(3, peak.getDeviceId());
+                ps.setDouble(4, peak.getTotalConsumption());
+                ps.setObject(5, peak.getHour());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    public int deleteByDeviceId(UUID deviceId) {
+        return jdbcTemplate.update("DELETE FROM device_stats WHERE device_id = ?", deviceId);
+    }
+
+    private static final class DeviceDelta {
+
+        private long count;
+        private double total;
+        private LocalDateTime first;
+        private LocalDateTime last;
+
+        void add(LocalDateTime timestamp, double value) {
+            count++;
+            total += value;
+            if (first == null || timestamp.isBefore(first)) {
+                first = timestamp;
+            }
+            if (last == null || timestamp.isAfter(last)) {
+                last = timestamp;
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.energy.monitoringservice.repository;
+
+import com.energy.monitoringservice.entity.DeviceStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface DeviceStatsRepository extends JpaRepository<DeviceStats, UUID> {
+}
@@ -0,0 +1,198 @@
+package com.energy.monitoringservice.repository;
+
+import com.energy.monitoringservice.dto.HourlyAggregateDTO;
+import com.energy.monitoringservice.entity.HourlyEnergyConsumption;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public class HourlyConsumptionBatchRepository {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO hourly_energy_consumption " +
+            "(id, device_id, hour, total_consumption, measurement_count, min_measurement, max_measurement, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (device_id, hour) DO UPDATE SET " +
+            "total_consumption = EXCLUDED.total_consumption, " +
+            "measurement_count = EXCLUDED.measurement_count, " +
+            "min_measurement = EXCLUDED.min_measurement, " +
+            "max_measurement = EXCLUDED.max_measurement " +
+            "WHERE hourly_energy_consumption.measurement_count IS NULL " +
+            "OR hourly_energy_consumption.measurement_count <= EXCLUDED.measurement_count";
+
+    private static final String LOCK_DEVICES_SQL =
+            "SELECT pg_advisory_xact_lock(hashtext('hourly_energy_consumption'), hashtext(d::text)) " +
+            "FROM (SELECT DISTINCT d FROM unnest(?::uuid[]) d ORDER BY d) s";
+
+    private static final String FIND_EXISTING_SQL =
+            "SELECT device_id, hour, total_consumption, COALESCE(measurement_count, 0) " +
+            "FROM hourly_energy_consumption " +
+            "WHERE (device_id, hour) IN (SELECT * FROM unnest(?::uuid[], ?::timestamp[]))";
+
+    private static final String FIND_FOR_DEVICES_SQL =
+            "SELECT id, device_id, hour, total_consumption, measurement_count, min_measurement, max_measurement, created_at " +
+            "FROM hourly_energy_consumption " +
+            "WHERE device_id = ANY(?) AND hour >= ? AND hour < ? " +
+            "ORDER BY device_id, hour";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator idAllocator;
+
+    public HourlyConsumptionBatchRepository(JdbcTemplate jdbcTemplate, SequenceIdAllocator idAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+    }
+
+    @Transactional(readOnly = true)
+    public List<HourlyEnergyConsumption> findForDevices(Collection<UUID> deviceIds, LocalDateTime start, LocalDateTime end) {
+        if (deviceIds.isEmpty()) {
+            return List.of();
+        }
+
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(FIND_FOR_DEVICES_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", deviceIds.toArray()));
+            ps.setObject(2, start);
+            ps.setObject(3, end);
+            return ps;
+        }, (rs, rowNum) -> {
+            HourlyEnergyConsumption consumption = new HourlyEnergyConsumption(
+                    rs.getLong(1),
+                    rs.getObject(2, UUID.class),
+                    rs.getObject(3, LocalDateTime.class),
+                    rs.getDouble(4),
+                    rs.getObject(8, LocalDateTime.class)
+            );
+            consumption.setMeasurementCount(rs.getObject(5, Integer.class));
+            consumption.setMinMeasurement(rs.getObject(6, Double.class));
+            consumption.setMaxMeasurement(rs.getObject(7, Double.class));
+            return consumption;
+        });
+    }
+
+    public UpsertResult upsertAll(List<HourlyAggregateDTO> aggregates) {
+        if (aggregates.isEmpty()) {
+            return new UpsertResult(List.of(), List.of(), Map.of());
+        }
+
+        UUID[] deviceIds = new UUID[aggregates.size()];
+        Timestamp[] hours = new Timestamp[aggregates.size()];
+        for (int i = 0; i < aggregates.size(); i++) {
+            deviceIds[i] = aggregates.get(i).getDeviceId();
+            hours[i] = Timestamp.valueOf(aggregates.get(i).getHour());
+        }
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(LOCK_DEVICES_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", deviceIds));
+            return ps;
+        }, rs -> {
+        });
+
+        Map<UUID, Map<LocalDateTime, HourlyAggregateDTO>> existing = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(FIND_EXISTING_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", deviceIds));
+            ps.setArray(2, con.createArrayOf("timestamp", hours));
+            return ps;
+        }, rs -> {
+            HourlyAggregateDTO previous = new HourlyAggregateDTO();
+            previous.setDeviceId(rs.getObject(1, UUID.class));
+            previous.setHour(rs.getObject(2, LocalDateTime.class));
+            previous.setTotalConsumption(rs.getDouble(3));
+            previous.setMeasurementCount(rs.getInt(4));
+            existing.computeIfAbsent(previous.getDeviceId(), id -> new HashMap<>()).put(previous.getHour(), previous);
+        });
+
+        LocalDateTime now = LocalDateTime.now();
+        long[] ids = idAllocator.allocate(SequenceIdAllocator.HOURLY_CONSUMPTION_SEQ, aggregates.size());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                HourlyAggregateDTO aggregate = aggregates.get(i);
+                ps.setLong(1, ids[i]);
+                ps.setObject(2, aggregate.getDeviceId());
+                ps.setObject(3, aggregate.getHour());
+                ps.setDouble(4, aggregate.getTotalConsumption());
+                ps.setInt(5, aggregate.getMeasurementCount());
+                ps.setDouble(6, aggregate.getMinMeasurement());
+                ps.setDouble(7, aggregate.getMaxMeasurement());
+                ps.setObject(8, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return aggregates.size();
+            }
+        });
+
+        List<HourlyAggregateDTO> applied = new ArrayList<>();
+        List<HourlyAggregateDTO> deltas = new ArrayList<>();
+        for (HourlyAggregateDTO aggregate : aggregates) {
+            HourlyAggregateDTO previous = existing.getOrDefault(aggregate.getDeviceId(), Map.of()).get(aggregate.getHour());
+            if (previous == null) {
+                applied.add(aggregate);
+                deltas.add(aggregate);
+                continue;
+            }
+            if (previous.getMeasurementCount() > aggregate.getMeasurementCount()) {
+                continue;
+            }
+            applied.add(aggregate);
+
+            int countDelta = aggregate.getMeasurementCount() - previous.getMeasurementCount();
+            double totalDelta = aggregate.getTotalConsumption() - previous.getTotalConsumption();
+            if (countDelta > 0 || (countDelta == 0 && totalDelta != 0)) {
+                deltas.add(new HourlyAggregateDTO(
+                        aggregate.getDeviceId(),
+                        aggregate.getHour(),
+                        totalDelta,
+                        countDelta,
+                        aggregate.getMinMeasurement(),
+                        aggregate.getMaxMeasurement()
+                ));
+            }
+        }
+        return new UpsertResult(applied, deltas, existing);
+    }
+
+    public static final class UpsertResult {
+
+        private final List<HourlyAggregateDTO> applied;
+        private final List<HourlyAggregateDTO> deltas;
+        private final Map<UUID, Map<LocalDateTime, HourlyAggregateDTO>> previous;
+
+        public UpsertResult(List<HourlyAggregateDTO> applied, List<HourlyAggregateDTO> deltas,
+                            Map<UUID, Map<LocalDateTime, HourlyAggregateDTO>> previous) {
+            this.applied = applied;
+            this.deltas = deltas;
+            this.previous = previous;
+        }
+
+        public List<HourlyAggregateDTO> getApplied() {
+            return applied;
+        }
+
+        public List<HourlyAggregateDTO> getDeltas() {
+            return deltas;
+        }
+
+        public Optional<HourlyAggregateDTO> previousOf(HourlyAggregateDTO aggregate) {
+            return Optional.ofNullable(previous.getOrDefault(aggregate.getDeviceId(), Map.of()).get(aggregate.getHour()));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.energy.monitoringservice.repository;
 
+import com.energy.monitoringservice.dto.TimeValueDTO;
 import com.energy.monitoringservice.entity.HourlyEnergyConsumption;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -23,6 +24,16 @@ public interface HourlyConsumptionRepository extends JpaRepository<HourlyEnergyC
             LocalDateTime end
     );
 
+    @Query("SELECT new com.energy.monitoringservice.dto.TimeValueDTO(h.hour, h.totalConsumption) " +
+            "FROM HourlyEnergyConsumption h " +
+            "WHERE h.deviceId = :deviceId AND h.hour BETWEEN :start AND :end " +
+            "ORDER BY h.hour")
+    List<TimeValueDTO> findSeries(
+            @Param("deviceId") UUID deviceId,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end
+    );
+
     @Modifying
     @Query("DELETE FROM HourlyEnergyConsumption h WHERE h.deviceId = :deviceId")
     int deleteByDeviceId(@Param("deviceId") UUID deviceId);
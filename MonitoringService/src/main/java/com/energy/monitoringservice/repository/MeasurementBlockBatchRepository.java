@@ -0,0 +1,143 @@
+package com.energy.monitoringservice.repository;
+
+import com.energy.monitoringservice.entity.MeasurementBlock;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@Repository
+public class MeasurementBlockBatchRepository {
+
+    private static final String CANDIDATES_SQL =
+            "SELECT DISTINCT device_id, timestamp::date AS day FROM sensor_measurements " +
+            "WHERE timestamp < ? ORDER BY day, device_id LIMIT ?";
+
+    private static final String TRY_LOCK_SQL =
+            "SELECT pg_try_advisory_xact_lock(hashtext('measurement_blocks'), hashtext(?))";
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO measurement_blocks (id, device_id, day, point_count, first_timestamp, last_timestamp, " +
+            "data, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (device_id, day) DO UPDATE SET " +
+            "point_count = EXCLUDED.point_count, first_timestamp = EXCLUDED.first_timestamp, " +
+            "last_timestamp = EXCLUDED.last_timestamp, data = EXCLUDED.data, updated_at = EXCLUDED.updated_at";
+
+    private static final String FIND_BLOCKS_SQL =
+            "SELECT day, point_count, first_timestamp, last_timestamp, data FROM measurement_blocks " +
+            "WHERE device_id = ? AND day >= COALESCE(?, '-infinity'::date) AND day < COALESCE(?, 'infinity'::date) " +
+            "ORDER BY day LIMIT ?";
+
+    private static final String LOCK_DAYS_SHARED_SQL =
+            "SELECT pg_advisory_xact_lock_shared(hashtext('measurement_blocks'), hashtext(k)) " +
+            "FROM unnest(?::text[]) AS k";
+
+    private static final String FIND_DAY_BLOCKS_SQL =
+            "SELECT b.device_id, b.day, b.data FROM measurement_blocks b " +
+            "JOIN unnest(?::uuid[], ?::date[]) AS k(device_id, day) ON b.device_id = k.device_id AND b.day = k.day";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator idAllocator;
+
+    public MeasurementBlockBatchRepository(JdbcTemplate jdbcTemplate, SequenceIdAllocator idAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+    }
+
+    public List<Map.Entry<UUID, LocalDate>> findCompactionCandidates(LocalDate cutoff, int limit) {
+        return jdbcTemplate.query(CANDIDATES_SQL,
+                (rs, rowNum) -> Map.entry(rs.getObject(1, UUID.class), rs.getObject(2, LocalDate.class)),
+                cutoff.atStartOfDay(), limit);
+    }
+
+    public boolean tryLockDay(UUID deviceId, LocalDate day) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK_SQL, Boolean.class, deviceId + ":" + day));
+    }
+
+    public List<MeasurementBlock> lockAndFindBlocks(Map<UUID, Set<LocalDate>> days) {
+        List<String> lockKeys = new ArrayList<>();
+        List<UUID> deviceIds = new ArrayList<>();
+        List<LocalDate> dayList = new ArrayList<>();
+        days.forEach((deviceId, deviceDays) -> {
+            for (LocalDate day : deviceDays) {
+                lockKeys.add(deviceId + ":" + day);
+                deviceIds.add(deviceId);
+                dayList.add(day);
+            }
+        });
+        if (lockKeys.isEmpty()) {
+            return List.of();
+        }
+        Collections.sort(lockKeys);
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(LOCK_DAYS_SHARED_SQL);
+            ps.setArray(1, con.createArrayOf("text", lockKeys.toArray()));
+            return ps;
+        }, rs -> {
+        });
+
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(FIND_DAY_BLOCKS_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", deviceIds.toArray()));
+            ps.setArray(2, con.createArrayOf("date", dayList.stream().map(Date::valueOf).toArray()));
+            return ps;
+        }, (rs, rowNum) -> {
+            MeasurementBlock block = new MeasurementBlock();
+            block.setDeviceId(rs.getObject(1, UUID.class));
+            block.setDay(rs.getObject(2, LocalDate.class));
+            block.setData(rs.getBytes(3));
+            return block;
+        });
+    }
+
+    public void upsert(MeasurementBlock block) {
+        jdbcTemplate.update(UPSERT_SQL,
+                idAllocator.allocate(SequenceIdAllocator.MEASUREMENT_BLOCKS_SEQ, 1)[0],
+                block.getDeviceId(),
+                block.getDay(),
+                block.getPointCount(),
+                block.getFirstTimestamp(),
+                block.getLastTimestamp(),
+                block.getData(),
+                block.getUpdatedAt());
+    }
+
+    public int deleteHotDay(UUID deviceId, LocalDate day) {
+        return jdbcTemplate.update(
+                "DELETE FROM sensor_measurements WHERE device_id = ? AND timestamp >= ? AND timestamp < ?",
+                deviceId, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+    }
+
+    public List<MeasurementBlock> findBlocks(UUID deviceId, LocalDate fromDay, LocalDate toDay, int limit) {
+        return jdbcTemplate.query(FIND_BLOCKS_SQL, (rs, rowNum) -> {
+            MeasurementBlock block = new MeasurementBlock();
+            block.setDeviceId(deviceId);
+            block.setDay(rs.getObject(1, LocalDate.class));
+            block.setPointCount(rs.getInt(2));
+            block.setFirstTimestamp(rs.getObject(3, LocalDateTime.class));
+            block.setLastTimestamp(rs.getObject(4, LocalDateTime.class));
+            block.setData(rs.getBytes(5));
+            return block;
+        }, deviceId, fromDay, toDay, limit);
+    }
+
+    public LocalDate findCompactedUntil(UUID deviceId) {
+        LocalDate lastDay = jdbcTemplate.queryForObject(
+                "SELECT MAX(day) FROM measurement_blocks WHERE device_id = ?", LocalDate.class, deviceId);
+        return lastDay != null ? lastDay.plusDays(1) : null;
+    }
+
+    public int deleteByDeviceId(UUID deviceId) {
+        return jdbcTemplate.update("DELETE FROM measurement_blocks WHERE device_id = ?", deviceId);
+    }
+}
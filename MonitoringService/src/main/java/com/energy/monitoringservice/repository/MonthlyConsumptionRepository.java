@@ -0,0 +1,19 @@
+package com.energy.monitoringservice.repository;
+
+import com.energy.monitoringservice.entity.MonthlyEnergyConsumption;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface MonthlyConsumptionRepository extends JpaRepository<MonthlyEnergyConsumption, Long> {
+
+    List<MonthlyEnergyConsumption> findByDeviceIdAndPeriodStartBetweenOrderByPeriodStartAsc(
+            UUID deviceId,
+            LocalDate start,
+            LocalDate end
+    );
+}
@@ -0,0 +1,155 @@
+package com.energy.monitoringservice.repository;
+
+import com.energy.monitoringservice.dto.HourlyAggregateDTO;
+import com.energy.monitoringservice.entity.SensorMeasurement;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Repository
+public class SensorMeasurementBatchRepository {
+
+    private static final String INSERT_IGNORE_DUPLICATES_SQL =
+            "INSERT INTO sensor_measurements (id, device_id, timestamp, measurement_value, created_at) " +
+            "SELECT * FROM unnest(?::int8[], ?::uuid[], ?::timestamp[], ?::float8[], ?::timestamp[]) " +
+            "ON CONFLICT DO NOTHING " +
+            "RETURNING device_id, timestamp";
+
+    private static final String AGGREGATE_SQL =
+            "SELECT COUNT(*), COALESCE(SUM(measurement_value), 0), MIN(measurement_value), MAX(measurement_value) " +
+            "FROM sensor_measurements WHERE device_id = ? AND timestamp >= ? AND timestamp < ?";
+
+    private static final String STREAM_BY_DEVICE_SQL =
+            "SELECT id, device_id, timestamp, measurement_value, created_at FROM sensor_measurements " +
+            "WHERE device_id = ? AND timestamp >= COALESCE(?, '-infinity'::timestamp) " +
+            "AND timestamp < COALESCE(?, 'infinity'::timestamp) ORDER BY timestamp";
+
+    private static final String STREAM_RANGE_SQL =
+            "SELECT timestamp, measurement_value FROM sensor_measurements " +
+            "WHERE device_id = ? AND timestamp >= ? AND timestamp < ? ORDER BY timestamp";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator idAllocator;
+
+    public SensorMeasurementBatchRepository(JdbcTemplate jdbcTemplate, SequenceIdAllocator idAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+    }
+
+    public List<SensorMeasurement> insertIgnoringDuplicates(List<SensorMeasurement> measurements) {
+        if (measurements.isEmpty()) {
+            return List.of();
+        }
+
+        int size = measurements.size();
+        long[] allocated = idAllocator.allocate(SequenceIdAllocator.SENSOR_MEASUREMENTS_SEQ, size);
+        Long[] ids = new Long[size];
+        UUID[] deviceIds = new UUID[size];
+        Timestamp[] timestamps = new Timestamp[size];
+        Double[] values = new Double[size];
+        Timestamp[] createdAt = new Timestamp[size];
+        for (int i = 0; i < size; i++) {
+            SensorMeasurement measurement = measurements.get(i);
+            measurement.setId(allocated[i]);
+            ids[i] = allocated[i];
+            deviceIds[i] = measurement.getDeviceId();
+            timestamps[i] = Timestamp.valueOf(measurement.getTimestamp());
+            values[i] = measurement.getMeasurementValue();
+            createdAt[i] = Timestamp.valueOf(measurement.getCreatedAt());
+        }
+
+        Map<UUID, Set<LocalDateTime>> inserted = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_IGNORE_DUPLICATES_SQL);
+            ps.setArray(1, con.createArrayOf("int8", ids));
+            ps.setArray(2, con.createArrayOf("uuid", deviceIds));
+            ps.setArray(3, con.createArrayOf("timestamp", timestamps));
+            ps.setArray(4, con.createArrayOf("float8", values));
+            ps.setArray(5, con.createArrayOf("timestamp", createdAt));
+            return ps;
+        }, rs -> {
+            inserted.computeIfAbsent(rs.getObject(1, UUID.class), id -> new HashSet<>())
+                    .add(rs.getObject(2, LocalDateTime.class));
+        });
+
+        List<SensorMeasurement> saved = new ArrayList<>(size);
+        for (SensorMeasurement measurement : measurements) {
+            Set<LocalDateTime> deviceTimestamps = inserted.get(measurement.getDeviceId());
+            if (deviceTimestamps != null && deviceTimestamps.remove(measurement.getTimestamp())) {
+                saved.add(measurement);
+            }
+        }
+        return saved;
+    }
+
+    @Transactional(readOnly = true)
+    public void forEachByDevice(UUID deviceId, LocalDateTime start, LocalDateTime end, int fetchSize,
+                                Consumer<SensorMeasurement> consumer) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(STREAM_BY_DEVICE_SQL);
+            ps.setFetchSize(fetchSize);
+            ps.setObject(1, deviceId);
+            ps.setObject(2, start, Types.TIMESTAMP);
+            ps.setObject(3, end, Types.TIMESTAMP);
+            return ps;
+        }, rs -> {
+            SensorMeasurement measurement = new SensorMeasurement();
+            measurement.setId(rs.getLong(1));
+            measurement.setDeviceId(rs.getObject(2, UUID.class));
+            measurement.setTimestamp(rs.getObject(3, LocalDateTime.class));
+            measurement.setMeasurementValue(rs.getDouble(4));
+            measurement.setCreatedAt(rs.getObject(5, LocalDateTime.class));
+            consumer.accept(measurement);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public void forEachPoint(UUID deviceId, LocalDateTime start, LocalDateTime end, int fetchSize,
+                             PointConsumer consumer) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(STREAM_RANGE_SQL);
+            ps.setFetchSize(fetchSize);
+            ps.setObject(1, deviceId);
+            ps.setObject(2, start);
+            ps.setObject(3, end);
+            return ps;
+        }, rs -> {
+            consumer.accept(rs.getObject(1, LocalDateTime.class), rs.getDouble(2));
+        });
+    }
+
+    public Optional<HourlyAggregateDTO> aggregate(UUID deviceId, LocalDateTime start, LocalDateTime end) {
+        return jdbcTemplate.query(AGGREGATE_SQL, rs -> {
+            if (!rs.next() || rs.getInt(1) == 0) {
+                return Optional.empty();
+            }
+            return Optional.of(new HourlyAggregateDTO(
+                    deviceId,
+                    start,
+                    rs.getDouble(2),
+                    rs.getInt(1),
+                    rs.getDouble(3),
+                    rs.getDouble(4)
+            ));
+        }, deviceId, start, end);
+    }
+
+    @FunctionalInterface
+    public interface PointConsumer {
+        void accept(LocalDateTime timestamp, double value);
+    }
+}
@@ -1,6 +1,7 @@
 package com.energy.monitoringservice.repository;
 
 import com.energy.monitoringservice.entity.SensorMeasurement;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -20,13 +21,15 @@ public interface SensorMeasurementRepository extends JpaRepository<SensorMeasure
             LocalDateTime end
     );
 
-    List<SensorMeasurement> findByDeviceIdOrderByTimestampAsc(UUID deviceId);
+    List<SensorMeasurement> findByDeviceIdOrderByTimestampAsc(UUID deviceId, Limit limit);
+
+    List<SensorMeasurement> findByDeviceIdAndTimestampAfterOrderByTimestampAsc(
+            UUID deviceId,
+            LocalDateTime after,
+            Limit limit
+    );
 
     @Modifying
     @Query("DELETE FROM SensorMeasurement s WHERE s.deviceId = :deviceId")
     int deleteByDeviceId(@Param("deviceId") UUID deviceId);
-
-    long countByDeviceId(UUID deviceId);
-
-    boolean existsByDeviceIdAndTimestamp(UUID deviceId, LocalDateTime timestamp);
 }
\ No newline at end of file
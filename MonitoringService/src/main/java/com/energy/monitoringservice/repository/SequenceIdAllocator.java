@@ -0,0 +1,88 @@
+package com.energy.monitoringservice.repository;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Repository
+@DependsOn("measurementPartitionManager")
+public class SequenceIdAllocator {
+
+    public static final String SENSOR_MEASUREMENTS_SEQ = "sensor_measurements_seq";
+    public static final String HOURLY_CONSUMPTION_SEQ = "hourly_energy_consumption_seq";
+    public static final String CONSUMPTION_ROLLUP_SEQ = "consumption_rollup_seq";
+    public static final String MEASUREMENT_BLOCKS_SEQ = "measurement_blocks_seq";
+    public static final String DEVICE_DAY_VERSIONS_SEQ = "device_day_versions_seq";
+    public static final int ALLOCATION_SIZE = 50;
+
+    private static final Map<String, List<String>> SEQUENCE_TABLES = Map.of(
+            SENSOR_MEASUREMENTS_SEQ, List.of("sensor_measurements"),
+            HOURLY_CONSUMPTION_SEQ, List.of("hourly_energy_consumption"),
+            CONSUMPTION_ROLLUP_SEQ, List.of("daily_energy_consumption", "weekly_energy_consumption",
+                    "monthly_energy_consumption"),
+            MEASUREMENT_BLOCKS_SEQ, List.of("measurement_blocks"),
+            DEVICE_DAY_VERSIONS_SEQ, List.of("device_day_versions")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+    public SequenceIdAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignSequences() {
+        SEQUENCE_TABLES.forEach((sequence, tables) -> {
+            String ids = String.join(" UNION ALL ", tables.stream().map(table -> "SELECT id FROM " + table).toList());
+            jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + sequence +
+                    " START WITH 1 INCREMENT BY " + ALLOCATION_SIZE);
+            jdbcTemplate.queryForList("SELECT setval('" + sequence + "', t.max_id + " + ALLOCATION_SIZE + ") " +
+                    "FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM (" + ids + ") u) t " +
+                    "WHERE t.max_id + " + ALLOCATION_SIZE + " > (SELECT last_value FROM " + sequence + ")", Long.class);
+        });
+    }
+
+    public long[] allocate(String sequence, int count) {
+        return pools.computeIfAbsent(sequence, Pool::new).allocate(count);
+    }
+
+    private final class Pool {
+
+        private final String sequence;
+        private long next;
+        private long hi = -1;
+
+        Pool(String sequence) {
+            this.sequence = sequence;
+        }
+
+        synchronized long[] allocate(int count) {
+            long[] ids = new long[count];
+            int filled = 0;
+
+            while (filled < count && next <= hi) {
+                ids[filled++] = next++;
+            }
+
+            if (filled < count) {
+                int blocks = (count - filled + ALLOCATION_SIZE - 1) / ALLOCATION_SIZE;
+                List<Long> values = jdbcTemplate.queryForList(
+                        "SELECT nextval('" + sequence + "') FROM generate_series(1, ?)", Long.class, blocks);
+                for (long value : values) {
+                    next = value - ALLOCATION_SIZE + 1;
+                    hi = value;
+                    while (filled < count && next <= hi) {
+                        ids[filled++] = next++;
+                    }
+                }
+            }
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.energy.monitoringservice.repository;
+
+import com.energy.monitoringservice.entity.WeeklyEnergyConsumption;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface WeeklyConsumptionRepository extends JpaRepository<WeeklyEnergyConsumption, Long> {
+
+    List<WeeklyEnergyConsumption> findByDeviceIdAndPeriodStartBetweenOrderByPeriodStartAsc(
+            UUID deviceId,
+            LocalDate start,
+            LocalDate end
+    );
+}
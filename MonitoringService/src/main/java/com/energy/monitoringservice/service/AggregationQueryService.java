@@ -0,0 +1,218 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.dto.AggregationResultDTO;
+import com.energy.monitoringservice.dto.TimeValueDTO;
+import com.energy.monitoringservice.repository.AggregationQueryRepository;
+import com.energy.monitoringservice.repository.AggregationQueryRepository.Function;
+import com.energy.monitoringservice.repository.AggregationQueryRepository.Source;
+import com.energy.monitoringservice.repository.MeasurementBlockBatchRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Service
+public class AggregationQueryService {
+
+    private static final Pattern BUCKET_PATTERN = Pattern.compile("(\\d+)([mhdw])");
+    private static final Source[] ROLLUPS_COARSEST_FIRST = {Source.WEEKLY, Source.DAILY, Source.HOURLY};
+
+    private final AggregationQueryRepository aggregationRepository;
+    private final MeasurementBlockBatchRepository blockRepository;
+    private final MeasurementReader measurementReader;
+
+    @Value("${monitoring.aggregation.max-buckets:10000}")
+    private long maxBuckets;
+
+    @Value("${monitoring.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Autowired
+    public AggregationQueryService(AggregationQueryRepository aggregationRepository,
+                                   MeasurementBlockBatchRepository blockRepository,
+                                   MeasurementReader measurementReader) {
+        this.aggregationRepository = aggregationRepository;
+        this.blockRepository = blockRepository;
+        this.measurementReader = measurementReader;
+    }
+
+    @Transactional(readOnly = true)
+    public AggregationResultDTO aggregate(UUID deviceId, LocalDateTime from, LocalDateTime to,
+                                          String bucketSpec, Function function, Source requestedSource) {
+        Duration bucket = parseBucket(bucketSpec);
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("'to' must be after 'from'");
+        }
+        if (Duration.between(from, to).toSeconds() / bucket.toSeconds() > maxBuckets) {
+            throw new IllegalArgumentException("Range covers more than " + maxBuckets + " buckets of " + bucketSpec);
+        }
+
+        List<String> sources = new ArrayList<>();
+        List<TimeValueDTO> points = new ArrayList<>();
+
+        if (requestedSource != null) {
+            if (requestedSource != Source.RAW && !servableFrom(requestedSource, bucket, from)) {
+                throw new IllegalArgumentException("Bucket " + bucketSpec + " starting at " + from +
+                        " is not aligned to " + requestedSource.name().toLowerCase() + " rows");
+            }
+            query(requestedSource, function, bucket, deviceId, from, to, sources, points);
+        } else {
+            Source rollup = cheapestRollup(bucket, from);
+            LocalDateTime split = from;
+            if (rollup != null) {
+                LocalDateTime closedUntil = aggregationRepository.findClosedUntil(deviceId);
+                if (closedUntil != null) {
+                    LocalDateTime boundary = floorToBucket(closedUntil, bucket);
+                    if (boundary.isAfter(from)) {
+                        split = boundary.isBefore(to) ? boundary : to;
+                    }
+                }
+            }
+
+            if (split.isAfter(from)) {
+                query(rollup, function, bucket, deviceId, from, split, sources, points);
+            }
+            if (split.isBefore(to)) {
+                query(Source.RAW, function, bucket, deviceId, split, to, sources, points);
+            }
+        }
+
+        long[] timestamps = new long[points.size()];
+        double[] values = new double[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            timestamps[i] = points.get(i).getTimestamp().toEpochSecond(ZoneOffset.UTC);
+            values[i] = points.get(i).getValue();
+        }
+        return new AggregationResultDTO(deviceId, bucketSpec, function.name(), sources, timestamps, values);
+    }
+
+    private void query(Source source, Function function, Duration bucket, UUID deviceId,
+                       LocalDateTime start, LocalDateTime end, List<String> sources, List<TimeValueDTO> points) {
+        if (source == Source.RAW) {
+            LocalDate compactedUntil = blockRepository.findCompactedUntil(deviceId);
+            if (compactedUntil != null && start.isBefore(compactedUntil.atStartOfDay())) {
+                sources.add("raw+cold");
+                points.addAll(aggregateDecoded(function, bucket, deviceId, start, end));
+                return;
+            }
+        }
+        sources.add(source.name().toLowerCase());
+        points.addAll(aggregationRepository.aggregate(source, function, bucket, deviceId, start, end));
+    }
+
+    private List<TimeValueDTO> aggregateDecoded(Function function, Duration bucket, UUID deviceId,
+                                                LocalDateTime start, LocalDateTime end) {
+        List<TimeValueDTO> points = new ArrayList<>();
+        BucketAccumulator accumulator = new BucketAccumulator(function);
+        measurementReader.forEach(deviceId, start, end, fetchSize, measurement -> {
+            LocalDateTime bucketStart = floorToBucket(measurement.getTimestamp(), bucket);
+            if (!bucketStart.equals(accumulator.bucketStart)) {
+                accumulator.emitTo(points);
+                accumulator.reset(bucketStart);
+            }
+            accumulator.add(measurement.getMeasurementValue());
+        });
+        accumulator.emitTo(points);
+        return points;
+    }
+
+    private static Source cheapestRollup(Duration bucket, LocalDateTime from) {
+        for (Source source : ROLLUPS_COARSEST_FIRST) {
+            if (servableFrom(source, bucket, from)) {
+                return source;
+            }
+        }
+        return null;
+    }
+
+    private static boolean servableFrom(Source source, Duration bucket, LocalDateTime from) {
+        long granularity = source.getGranularity().toSeconds();
+        return bucket.toSeconds() % granularity == 0 && secondsSinceOrigin(from) % granularity == 0;
+    }
+
+    private static LocalDateTime floorToBucket(LocalDateTime time, Duration bucket) {
+        long seconds = secondsSinceOrigin(time);
+        return AggregationQueryRepository.BUCKET_ORIGIN.plusSeconds(seconds - Math.floorMod(seconds, bucket.toSeconds()));
+    }
+
+    private static long secondsSinceOrigin(LocalDateTime time) {
+        return Duration.between(AggregationQueryRepository.BUCKET_ORIGIN, time).toSeconds();
+    }
+
+    private static Duration parseBucket(String bucketSpec) {
+        Matcher matcher = BUCKET_PATTERN.matcher(bucketSpec == null ? "" : bucketSpec.trim().toLowerCase());
+        if (!matcher.matches() || Long.parseLong(matcher.group(1)) == 0) {
+            throw new IllegalArgumentException("Bucket must look like 15m, 1h, 1d or 1w, got " + bucketSpec);
+        }
+
+        long amount = Long.parseLong(matcher.group(1));
+        switch (matcher.group(2)) {
+            case "m":
+                return Duration.ofMinutes(amount);
+            case "h":
+                return Duration.ofHours(amount);
+            case "d":
+                return Duration.ofDays(amount);
+            default:
+                return Duration.ofDays(7 * amount);
+        }
+    }
+
+    private static final class BucketAccumulator {
+
+        private final Function function;
+        private LocalDateTime bucketStart;
+        private long count;
+        private double sum;
+        private double min;
+        private double max;
+
+        BucketAccumulator(Function function) {
+            this.function = function;
+        }
+
+        void reset(LocalDateTime bucketStart) {
+            this.bucketStart = bucketStart;
+            count = 0;
+            sum = 0;
+            min = Double.POSITIVE_INFINITY;
+            max = Double.NEGATIVE_INFINITY;
+        }
+
+        void add(double value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        void emitTo(List<TimeValueDTO> points) {
+            if (bucketStart == null || count == 0) {
+                return;
+            }
+            switch (function) {
+                case AVG:
+                    points.add(new TimeValueDTO(bucketStart, sum / count));
+                    break;
+                case MIN:
+                    points.add(new TimeValueDTO(bucketStart, min));
+                    break;
+                case MAX:
+                    points.add(new TimeValueDTO(bucketStart, max));
+                    break;
+                default:
+                    points.add(new TimeValueDTO(bucketStart, sum));
+            }
+        }
+    }
+}
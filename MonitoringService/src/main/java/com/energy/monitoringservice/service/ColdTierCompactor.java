@@ -0,0 +1,158 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.entity.MeasurementBlock;
+import com.energy.monitoringservice.repository.MeasurementBlockBatchRepository;
+import com.energy.monitoringservice.repository.SensorMeasurementBatchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+public class ColdTierCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(ColdTierCompactor.class);
+
+    private final MeasurementBlockBatchRepository blockRepository;
+    private final SensorMeasurementBatchRepository measurementBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final DeviceDayVersions dayVersions;
+
+    @Value("${monitoring.replica.id:1}")
+    private int replicaId;
+
+    @Value("${monitoring.cold-tier.age-days:0}")
+    private int ageDays;
+
+    @Value("${monitoring.cold-tier.max-days-per-run:1000}")
+    private int maxDaysPerRun;
+
+    @Value("${monitoring.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Autowired
+    public ColdTierCompactor(MeasurementBlockBatchRepository blockRepository,
+                             SensorMeasurementBatchRepository measurementBatchRepository,
+                             TransactionTemplate transactionTemplate,
+                             DeviceDayVersions dayVersions) {
+        this.blockRepository = blockRepository;
+        this.measurementBatchRepository = measurementBatchRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.dayVersions = dayVersions;
+    }
+
+    @Scheduled(cron = "${monitoring.cold-tier.cron:0 45 0 * * *}")
+    public void compactColdDays() {
+        if (ageDays <= 0) {
+            return;
+        }
+
+        LocalDate cutoff = LocalDate.now().minusDays(ageDays);
+        List<Map.Entry<UUID, LocalDate>> candidates = blockRepository.findCompactionCandidates(cutoff, maxDaysPerRun);
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        int days = 0;
+        long points = 0;
+        for (Map.Entry<UUID, LocalDate> candidate : candidates) {
+            try {
+                Integer compacted = transactionTemplate.execute(status ->
+                        compact(candidate.getKey(), candidate.getValue()));
+                if (compacted != null && compacted > 0) {
+                    days++;
+                    points += compacted;
+                }
+            } catch (Exception e) {
+                log.error("[REPLICA {}] Failed to compact measurements of device {} on {}: {}",
+                        replicaId, candidate.getKey(), candidate.getValue(), e.getMessage());
+            }
+        }
+
+        log.info("[REPLICA {}] Compacted {} measurements into {} cold blocks older than {}",
+                replicaId, points, days, cutoff);
+    }
+
+    private int compact(UUID deviceId, LocalDate day) {
+        if (!blockRepository.tryLockDay(deviceId, day)) {
+            return 0;
+        }
+
+        PointBuffer hot = new PointBuffer(256);
+        measurementBatchRepository.forEachPoint(deviceId, day.atStartOfDay(), day.plusDays(1).atStartOfDay(),
+                fetchSize, (timestamp, value) -> hot.add(MeasurementBlockCodec.toMicros(timestamp), value));
+        if (hot.size == 0) {
+            return 0;
+        }
+
+        List<MeasurementBlock> existing = blockRepository.findBlocks(deviceId, day, day.plusDays(1), 1);
+        PointBuffer merged = existing.isEmpty()
+                ? hot
+                : merge(hot, MeasurementBlockCodec.decode(existing.get(0).getData()));
+
+        MeasurementBlock block = new MeasurementBlock();
+        block.setDeviceId(deviceId);
+        block.setDay(day);
+        block.setPointCount(merged.size);
+        block.setFirstTimestamp(MeasurementBlockCodec.fromMicros(merged.timestamps[0]));
+        block.setLastTimestamp(MeasurementBlockCodec.fromMicros(merged.timestamps[merged.size - 1]));
+        block.setData(MeasurementBlockCodec.encode(merged.timestamps, merged.values, merged.size));
+        block.setUpdatedAt(LocalDateTime.now());
+
+        blockRepository.upsert(block);
+        blockRepository.deleteHotDay(deviceId, day);
+        dayVersions.touch(deviceId, day);
+        return hot.size;
+    }
+
+    private static PointBuffer merge(PointBuffer hot, MeasurementBlockCodec.Block cold) {
+        PointBuffer merged = new PointBuffer(hot.size + cold.size());
+        int h = 0;
+        int c = 0;
+        while (h < hot.size || c < cold.size()) {
+            if (c < cold.size() && (h == hot.size || cold.timestampAt(c) < hot.timestamps[h])) {
+                merged.add(cold.timestampAt(c), cold.valueAt(c));
+                c++;
+            } else {
+                if (c < cold.size() && cold.timestampAt(c) == hot.timestamps[h]) {
+                    c++;
+                }
+                merged.add(hot.timestamps[h], hot.values[h]);
+                h++;
+            }
+        }
+        return merged;
+    }
+
+    private static final class PointBuffer {
+
+        private long[] timestamps;
+        private double[] values;
+        private int size;
+
+        PointBuffer(int capacity) {
+            timestamps = new long[Math.max(16, capacity)];
+            values = new double[timestamps.length];
+        }
+
+        void add(long timestamp, double value) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            timestamps[size] = timestamp;
+            values[size] = value;
+            size++;
+        }
+    }
+}
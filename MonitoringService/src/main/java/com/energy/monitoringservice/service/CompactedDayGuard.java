@@ -0,0 +1,64 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.entity.MeasurementBlock;
+import com.energy.monitoringservice.entity.SensorMeasurement;
+import com.energy.monitoringservice.repository.MeasurementBlockBatchRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@Component
+public class CompactedDayGuard {
+
+    private final MeasurementBlockBatchRepository blockRepository;
+
+    @Autowired
+    public CompactedDayGuard(MeasurementBlockBatchRepository blockRepository) {
+        this.blockRepository = blockRepository;
+    }
+
+    public List<SensorMeasurement> withoutCompacted(List<SensorMeasurement> measurements) {
+        LocalDate today = LocalDate.now();
+        Map<UUID, Set<LocalDate>> pastDays = new HashMap<>();
+        for (SensorMeasurement measurement : measurements) {
+            LocalDate day = measurement.getTimestamp().toLocalDate();
+            if (day.isBefore(today)) {
+                pastDays.computeIfAbsent(measurement.getDeviceId(), id -> new HashSet<>()).add(day);
+            }
+        }
+        if (pastDays.isEmpty()) {
+            return measurements;
+        }
+
+        List<MeasurementBlock> blocks = blockRepository.lockAndFindBlocks(pastDays);
+        if (blocks.isEmpty()) {
+            return measurements;
+        }
+
+        Map<UUID, Set<Long>> stored = new HashMap<>();
+        for (MeasurementBlock block : blocks) {
+            MeasurementBlockCodec.Block decoded = MeasurementBlockCodec.decode(block.getData());
+            Set<Long> timestamps = stored.computeIfAbsent(block.getDeviceId(), id -> new HashSet<>());
+            for (int i = 0; i < decoded.size(); i++) {
+                timestamps.add(decoded.timestampAt(i));
+            }
+        }
+
+        List<SensorMeasurement> remaining = new ArrayList<>(measurements.size());
+        for (SensorMeasurement measurement : measurements) {
+            Set<Long> timestamps = stored.get(measurement.getDeviceId());
+            if (timestamps == null || !timestamps.contains(MeasurementBlockCodec.toMicros(measurement.getTimestamp()))) {
+                remaining.add(measurement);
+            }
+        }
+        return remaining;
+    }
+}
@@ -0,0 +1,165 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.dto.WebSocketMessageDTO;
+import com.energy.monitoringservice.entity.HourlyEnergyConsumption;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Component
+public class DailyConsumptionCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyConsumptionCache.class);
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong invalidations = new AtomicLong();
+    private Map<Key, Entry> entries;
+
+    private Counter hitCounter;
+    private Counter missCounter;
+
+    @Value("${monitoring.replica.id:1}")
+    private int replicaId;
+
+    @Value("${monitoring.cache.daily.max-entries:5000}")
+    private int maxEntries;
+
+    @Value("${monitoring.cache.daily.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Autowired
+    public DailyConsumptionCache(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        hitCounter = meterRegistry.counter("monitoring.cache.daily.requests", "result", "hit");
+        missCounter = meterRegistry.counter("monitoring.cache.daily.requests", "result", "miss");
+        meterRegistry.gauge("monitoring.cache.daily.size", this, cache -> cache.size());
+        meterRegistry.gauge("monitoring.cache.daily.hit.ratio", this, cache -> cache.hitRatio());
+    }
+
+    public List<HourlyEnergyConsumption> get(UUID deviceId, LocalDate date, String version,
+                                             Supplier<List<HourlyEnergyConsumption>> loader) {
+        Key key = new Key(deviceId, date);
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt > now && Objects.equals(entry.version, version)) {
+                hitCounter.increment();
+                return entry.value;
+            }
+        }
+
+        missCounter.increment();
+        long invalidationsBefore = invalidations.get();
+        List<HourlyEnergyConsumption> value = List.copyOf(loader.get());
+
+        synchronized (this) {
+            if (invalidations.get() == invalidationsBefore) {
+                entries.put(key, new Entry(value, version, now + ttlSeconds * 1000));
+            }
+        }
+        return value;
+    }
+
+    public void invalidate(UUID deviceId, LocalDate date) {
+        synchronized (this) {
+            invalidations.incrementAndGet();
+            entries.remove(new Key(deviceId, date));
+        }
+    }
+
+    @RabbitListener(queues = "#{monitoringCacheInvalidationQueue.name}")
+    public void handleMeasurementEvent(WebSocketMessageDTO message) {
+        if (message.getDeviceId() == null || message.getData() == null || message.getData().get("hour") == null) {
+            return;
+        }
+
+        try {
+            LocalDateTime hour = LocalDateTime.parse(message.getData().get("hour").toString());
+            invalidate(message.getDeviceId(), hour.toLocalDate());
+            log.debug("[REPLICA {}] Invalidated daily cache for device {} on {}",
+                    replicaId, message.getDeviceId(), hour.toLocalDate());
+        } catch (Exception e) {
+            log.warn("[REPLICA {}] Ignoring unparseable measurement event for cache invalidation: {}",
+                    replicaId, e.getMessage());
+        }
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+
+    private double hitRatio() {
+        double hits = hitCounter.count();
+        double total = hits + missCounter.count();
+        return total == 0 ? 0.0 : hits / total;
+    }
+
+    private static final class Key {
+
+        private final UUID deviceId;
+        private final LocalDate date;
+
+        Key(UUID deviceId, LocalDate date) {
+            this.deviceId = deviceId;
+            this.date = date;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return deviceId.equals(other.deviceId) && date.equals(other.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(deviceId, date);
+        }
+    }
+
+    private static final class Entry {
+
+        private final List<HourlyEnergyConsumption> value;
+        private final String version;
+        private final long expiresAt;
+
+        Entry(List<HourlyEnergyConsumption> value, String version, long expiresAt) {
+            this.value = value;
+            this.version = version;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
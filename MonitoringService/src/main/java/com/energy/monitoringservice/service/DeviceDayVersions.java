@@ -0,0 +1,121 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.repository.DeviceDayVersionBatchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+@Component
+public class DeviceDayVersions {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceDayVersions.class);
+
+    private static final Comparator<Map.Entry<UUID, LocalDate>> KEY_ORDER =
+            Map.Entry.<UUID, LocalDate>comparingByKey().thenComparing(Map.Entry.comparingByValue());
+
+    private final DeviceDayVersionBatchRepository versionRepository;
+
+    @Value("${monitoring.replica.id:1}")
+    private int replicaId;
+
+    @Value("${monitoring.http-cache.track-days:35}")
+    private int trackDays;
+
+    @Value("${monitoring.partitions.retention-days:0}")
+    private int retentionDays;
+
+    @Autowired
+    public DeviceDayVersions(DeviceDayVersionBatchRepository versionRepository) {
+        this.versionRepository = versionRepository;
+    }
+
+    public Optional<Version> versionOf(UUID deviceId, LocalDate day) {
+        return versionRepository.find(deviceId, day)
+                .map(row -> new Version(row.getId(), row.getVersion(),
+                        row.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+    }
+
+    public String etag(Version version, String variant) {
+        return "\"" + version.getTag() + "-" + variant + "\"";
+    }
+
+    public void touch(UUID deviceId, LocalDate day) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            versionRepository.bump(List.of(Map.entry(deviceId, day)));
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<Map.Entry<UUID, LocalDate>> pending =
+                (Set<Map.Entry<UUID, LocalDate>>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<Map.Entry<UUID, LocalDate>> touched = new TreeSet<>(KEY_ORDER);
+            TransactionSynchronizationManager.bindResource(this, touched);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    versionRepository.bump(new ArrayList<>(touched));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(DeviceDayVersions.this);
+                }
+            });
+            pending = touched;
+        }
+        pending.add(Map.entry(deviceId, day));
+    }
+
+    public void forgetDevice(UUID deviceId) {
+        versionRepository.deleteByDeviceId(deviceId);
+    }
+
+    @Scheduled(cron = "${monitoring.http-cache.prune-cron:0 20 0 * * *}")
+    public void prune() {
+        int keepDays = retentionDays > 0 ? Math.min(trackDays, retentionDays) : trackDays;
+        LocalDate cutoff = LocalDate.now().minusDays(keepDays);
+
+        int removed = versionRepository.deleteBefore(cutoff);
+        if (removed > 0) {
+            log.info("[REPLICA {}] Pruned {} day versions before {}", replicaId, removed, cutoff);
+        }
+    }
+
+    public static final class Version {
+
+        private final long rowId;
+        private final long sequence;
+        private final long timestamp;
+
+        Version(long rowId, long sequence, long timestamp) {
+            this.rowId = rowId;
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+        }
+
+        public String getTag() {
+            return rowId + "-" + sequence;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+}
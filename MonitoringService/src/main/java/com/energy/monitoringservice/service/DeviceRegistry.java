@@ -0,0 +1,202 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.config.ReadReplicaRoutingDataSource;
+import com.energy.monitoringservice.dto.SyncMessageDTO;
+import com.energy.monitoringservice.entity.DeviceCache;
+import com.energy.monitoringservice.repository.DeviceCacheRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Component
+public class DeviceRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceRegistry.class);
+
+    private final DeviceCacheRepository deviceCacheRepository;
+    private final MeasurementDeduplicator deduplicator;
+    private final HourlyAggregator hourlyAggregator;
+    private final ConcurrentMap<UUID, DeviceCache> devices = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, Long> tombstones = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, Long> misses = new ConcurrentHashMap<>();
+
+    @Value("${monitoring.replica.id:1}")
+    private int replicaId;
+
+    @Value("${monitoring.device-registry.tombstone-ttl-seconds:3600}")
+    private long tombstoneTtlSeconds;
+
+    @Value("${monitoring.device-registry.miss-ttl-seconds:30}")
+    private long missTtlSeconds;
+
+    @Value("${monitoring.device-registry.max-misses:100000}")
+    private int maxMisses;
+
+    @Autowired
+    public DeviceRegistry(DeviceCacheRepository deviceCacheRepository,
+                          MeasurementDeduplicator deduplicator,
+                          HourlyAggregator hourlyAggregator) {
+        this.deviceCacheRepository = deviceCacheRepository;
+        this.deduplicator = deduplicator;
+        this.hourlyAggregator = hourlyAggregator;
+    }
+
+    @PostConstruct
+    public void load() {
+        ReadReplicaRoutingDataSource.usePrimary(deviceCacheRepository::findAll)
+                .forEach(this::registerLoaded);
+        log.info("[REPLICA {}] Device registry loaded with {} devices", replicaId, devices.size());
+    }
+
+    public Optional<DeviceCache> find(UUID deviceId) {
+        if (deviceId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(devices.get(deviceId));
+    }
+
+    public Set<UUID> findKnown(Collection<UUID> deviceIds) {
+        long now = System.currentTimeMillis();
+        Set<UUID> known = new HashSet<>();
+        Set<UUID> missing = new HashSet<>();
+        for (UUID deviceId : deviceIds) {
+            if (devices.containsKey(deviceId)) {
+                known.add(deviceId);
+            } else if (!isLive(tombstones, deviceId, now) && !isLive(misses, deviceId, now)) {
+                missing.add(deviceId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            ReadReplicaRoutingDataSource.usePrimary(() -> deviceCacheRepository.findAllById(missing)).forEach(device -> {
+                missing.remove(device.getDeviceId());
+                if (registerLoaded(device)) {
+                    known.add(device.getDeviceId());
+                }
+            });
+            rememberMisses(missing, now);
+        }
+        return known;
+    }
+
+    @Scheduled(fixedDelayString = "${monitoring.device-registry.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        tombstones.values().removeIf(expiresAt -> expiresAt <= now);
+        misses.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    public Set<UUID> findByUser(UUID userId) {
+        Set<UUID> owned = new HashSet<>();
+        devices.values().forEach(device -> {
+            if (userId.equals(device.getUserId())) {
+                owned.add(device.getDeviceId());
+            }
+        });
+        return owned;
+    }
+
+    @RabbitListener(queues = "#{monitoringSyncBroadcastQueue.name}")
+    public void handleSyncBroadcast(SyncMessageDTO message) {
+        if (message.getEventType() == null || message.getDeviceId() == null) {
+            return;
+        }
+
+        switch (message.getEventType()) {
+            case "DEVICE_CREATED":
+                tombstones.remove(message.getDeviceId());
+                misses.remove(message.getDeviceId());
+                devices.putIfAbsent(message.getDeviceId(), new DeviceCache(
+                        message.getDeviceId(),
+                        message.getDeviceName(),
+                        message.getMaxConsumption()
+                ));
+                break;
+
+            case "DEVICE_DELETED":
+                tombstones.put(message.getDeviceId(), System.currentTimeMillis() + tombstoneTtlSeconds * 1000);
+                devices.remove(message.getDeviceId());
+                deduplicator.forget(message.getDeviceId());
+                hourlyAggregator.forget(message.getDeviceId());
+                break;
+
+            case "DEVICE_ASSIGNED":
+                updateUser(message.getDeviceId(), message.getUserId());
+                break;
+
+            case "DEVICE_UNASSIGNED":
+                updateUser(message.getDeviceId(), null);
+                break;
+
+            default:
+                return;
+        }
+
+        log.debug("[REPLICA {}] Device registry applied {} for device {}",
+                replicaId, message.getEventType(), message.getDeviceId());
+    }
+
+    private void rememberMisses(Set<UUID> missing, long now) {
+        if (missing.isEmpty() || missTtlSeconds <= 0) {
+            return;
+        }
+        if (misses.size() + missing.size() > maxMisses) {
+            purgeExpired();
+        }
+        if (misses.size() + missing.size() > maxMisses) {
+            log.debug("[REPLICA {}] Negative device cache full, not caching {} unknown devices", replicaId, missing.size());
+            return;
+        }
+        long expiresAt = now + missTtlSeconds * 1000;
+        missing.forEach(deviceId -> misses.put(deviceId, expiresAt));
+    }
+
+    private static boolean isLive(ConcurrentMap<UUID, Long> expiring, UUID deviceId, long now) {
+        Long expiresAt = expiring.get(deviceId);
+        return expiresAt != null && expiresAt > now;
+    }
+
+    private boolean registerLoaded(DeviceCache device) {
+        UUID deviceId = device.getDeviceId();
+        if (isLive(tombstones, deviceId, System.currentTimeMillis())) {
+            return false;
+        }
+        devices.putIfAbsent(deviceId, copyOf(device));
+        if (isLive(tombstones, deviceId, System.currentTimeMillis())) {
+            devices.remove(deviceId);
+            return false;
+        }
+        return true;
+    }
+
+    private void updateUser(UUID deviceId, UUID userId) {
+        DeviceCache updated = devices.computeIfPresent(deviceId, (id, current) -> {
+            DeviceCache copy = copyOf(current);
+            copy.setUserId(userId);
+            return copy;
+        });
+
+        if (updated == null) {
+            log.warn("[REPLICA {}] Device {} not in registry, ignoring user change", replicaId, deviceId);
+        }
+    }
+
+    private static DeviceCache copyOf(DeviceCache device) {
+        DeviceCache copy = new DeviceCache(device.getDeviceId(), device.getDeviceName(), device.getMaxConsumption());
+        copy.setUserId(device.getUserId());
+        return copy;
+    }
+}
@@ -0,0 +1,171 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.dto.HourlyAggregateDTO;
+import com.energy.monitoringservice.entity.DeviceCache;
+import com.energy.monitoringservice.repository.ConsumptionRollupBatchRepository;
+import com.energy.monitoringservice.repository.DeviceStatsBatchRepository;
+import com.energy.monitoringservice.repository.HourlyConsumptionBatchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+public class HourCloseScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(HourCloseScheduler.class);
+
+    private final HourlyAggregator hourlyAggregator;
+    private final HourlyConsumptionBatchRepository hourlyBatchRepository;
+    private final ConsumptionRollupBatchRepository rollupBatchRepository;
+    private final DeviceStatsBatchRepository deviceStatsBatchRepository;
+    private final DeviceRegistry deviceRegistry;
+    private final WebSocketEventPublisher eventPublisher;
+    private final DailyConsumptionCache dailyConsumptionCache;
+    private final DeviceDayVersions dayVersions;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${monitoring.replica.id:1}")
+    private int replicaId;
+
+    @Value("${monitoring.hour-close.allowed-lateness-seconds:300}")
+    private long allowedLatenessSeconds;
+
+    @Value("${monitoring.hour-close.idle-timeout-seconds:900}")
+    private long idleTimeoutSeconds;
+
+    @Autowired
+    public HourCloseScheduler(HourlyAggregator hourlyAggregator,
+                              HourlyConsumptionBatchRepository hourlyBatchRepository,
+                              ConsumptionRollupBatchRepository rollupBatchRepository,
+                              DeviceStatsBatchRepository deviceStatsBatchRepository,
+                              DeviceRegistry deviceRegistry,
+                              WebSocketEventPublisher eventPublisher,
+                              DailyConsumptionCache dailyConsumptionCache,
+                              DeviceDayVersions dayVersions,
+                              TransactionTemplate transactionTemplate) {
+        this.hourlyAggregator = hourlyAggregator;
+        this.hourlyBatchRepository = hourlyBatchRepository;
+        this.rollupBatchRepository = rollupBatchRepository;
+        this.deviceStatsBatchRepository = deviceStatsBatchRepository;
+        this.deviceRegistry = deviceRegistry;
+        this.eventPublisher = eventPublisher;
+        this.dailyConsumptionCache = dailyConsumptionCache;
+        this.dayVersions = dayVersions;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${monitoring.hour-close.interval-ms:10000}")
+    public void closeDueHours() {
+        List<HourlyAggregateDTO> due = hourlyAggregator.collectDueHours(
+                Duration.ofSeconds(allowedLatenessSeconds),
+                Duration.ofSeconds(idleTimeoutSeconds));
+
+        if (due.isEmpty()) {
+            return;
+        }
+
+        HourlyConsumptionBatchRepository.UpsertResult upserted;
+        try {
+            upserted = transactionTemplate.execute(status -> {
+                HourlyConsumptionBatchRepository.UpsertResult result = hourlyBatchRepository.upsertAll(due);
+                rollupBatchRepository.applyDeltas(result.getDeltas());
+                deviceStatsBatchRepository.recordClosedHours(result.getApplied());
+                result.getApplied().forEach(aggregate ->
+                        dayVersions.touch(aggregate.getDeviceId(), aggregate.getHour().toLocalDate()));
+                return result;
+            });
+        } catch (Exception e) {
+            log.error("[REPLICA {}] Failed to close {} hours: {}", replicaId, due.size(), e.getMessage(), e);
+            return;
+        }
+
+        hourlyAggregator.markClosed(due);
+        log.info("[REPLICA {}] Closed {} device-hours, {} kept a larger stored aggregate",
+                replicaId, due.size(), due.size() - upserted.getApplied().size());
+
+        for (HourlyAggregateDTO aggregate : upserted.getApplied()) {
+            HourlyAggregateDTO previous = upserted.previousOf(aggregate).orElse(null);
+            if (previous != null && previous.getMeasurementCount() == aggregate.getMeasurementCount()
+                    && previous.getTotalConsumption() == aggregate.getTotalConsumption()) {
+                continue;
+            }
+
+            dailyConsumptionCache.invalidate(aggregate.getDeviceId(), aggregate.getHour().toLocalDate());
+            log.info("[REPLICA {}] HOURLY AGGREGATE CREATED: device={}, hour={}, consumption={} kWh, measurements={}",
+                    replicaId, aggregate.getDeviceId(), aggregate.getHour(),
+                    aggregate.getTotalConsumption(), aggregate.getMeasurementCount());
+            checkOverconsumptionForCompletedHour(aggregate, previous);
+            broadcastHourlyAggregate(aggregate);
+        }
+    }
+
+    private void broadcastHourlyAggregate(HourlyAggregateDTO aggregate) {
+        UUID deviceId = aggregate.getDeviceId();
+        try {
+            Map<String, Object> wsData = new HashMap<>();
+            wsData.put("hour", aggregate.getHour().toString());
+            wsData.put("totalConsumption", aggregate.getTotalConsumption());
+            wsData.put("deviceId", deviceId.toString());
+
+            log.info("[REPLICA {}] Broadcasting HOURLY AGGREGATE for device {} hour: {}",
+                    replicaId, deviceId, aggregate.getHour());
+            eventPublisher.publishMeasurementUpdate(deviceId, wsData);
+            log.info("WebSocket broadcast completed for hour: {}", aggregate.getHour());
+
+        } catch (Exception e) {
+            log.error("[REPLICA {}] Failed to broadcast WebSocket message for {}: {}",
+                    replicaId, deviceId, e.getMessage(), e);
+        }
+    }
+
+    private void checkOverconsumptionForCompletedHour(HourlyAggregateDTO aggregate, HourlyAggregateDTO previous) {
+        UUID deviceId = aggregate.getDeviceId();
+        LocalDateTime hourTimestamp = aggregate.getHour();
+        double totalConsumption = aggregate.getTotalConsumption();
+        DeviceCache deviceCache = deviceRegistry.find(deviceId).orElse(null);
+
+        if (deviceCache == null || deviceCache.getMaxConsumption() == null) {
+            return;
+        }
+
+        Double maxConsumption = deviceCache.getMaxConsumption();
+
+        if (previous != null && previous.getTotalConsumption() > maxConsumption) {
+            log.debug("[REPLICA {}] Device {} already alerted for hour {}, corrected to {} kWh",
+                    replicaId, deviceId, hourTimestamp, totalConsumption);
+            return;
+        }
+
+        if (totalConsumption > maxConsumption) {
+            log.warn("[REPLICA {}] OVERCONSUMPTION! Device {}: {} kWh > {} kWh (hour {})",
+                    replicaId, deviceId, totalConsumption, maxConsumption, hourTimestamp);
+
+            Map<String, Object> alert = new HashMap<>();
+            alert.put("type", "OVERCONSUMPTION");
+            alert.put("deviceId", deviceId.toString());
+            alert.put("deviceName", deviceCache.getDeviceName());
+            alert.put("currentValue", totalConsumption);
+            alert.put("maxConsumption", maxConsumption);
+            alert.put("timestamp", hourTimestamp.toString());
+            alert.put("message", String.format("Device %s exceeded maximum consumption in hour %s! Consumed: %.3f kWh, Max: %.3f kWh",
+                    deviceCache.getDeviceName(), hourTimestamp, totalConsumption, maxConsumption));
+
+            if (deviceCache.getUserId() != null) {
+                eventPublisher.publishAlert(deviceCache.getUserId(), deviceId, alert);
+            } else {
+                log.warn("Cannot send alert: device {} has no assigned user", deviceId);
+            }
+        }
+    }
+}
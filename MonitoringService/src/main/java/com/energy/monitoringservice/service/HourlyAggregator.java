@@ -0,0 +1,285 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.dto.HourlyAggregateDTO;
+import com.energy.monitoringservice.entity.MeasurementBlock;
+import com.energy.monitoringservice.entity.SensorMeasurement;
+import com.energy.monitoringservice.repository.MeasurementBlockBatchRepository;
+import com.energy.monitoringservice.repository.SensorMeasurementBatchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Component
+public class HourlyAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(HourlyAggregator.class);
+
+    private final SensorMeasurementBatchRepository measurementBatchRepository;
+    private final MeasurementBlockBatchRepository blockRepository;
+    private final ConcurrentMap<UUID, DeviceHours> devices = new ConcurrentHashMap<>();
+
+    @Value("${monitoring.replica.id:1}")
+    private int replicaId;
+
+    @Autowired
+    public HourlyAggregator(SensorMeasurementBatchRepository measurementBatchRepository,
+                            MeasurementBlockBatchRepository blockRepository) {
+        this.measurementBatchRepository = measurementBatchRepository;
+        this.blockRepository = blockRepository;
+    }
+
+    public void record(List<SensorMeasurement> measurements) {
+        Map<UUID, Map<LocalDateTime, List<SensorMeasurement>>> byDeviceHour = new LinkedHashMap<>();
+        for (SensorMeasurement measurement : measurements) {
+            byDeviceHour.computeIfAbsent(measurement.getDeviceId(), id -> new LinkedHashMap<>())
+                    .computeIfAbsent(measurement.getTimestamp().truncatedTo(ChronoUnit.HOURS), hour -> new ArrayList<>())
+                    .add(measurement);
+        }
+
+        long now = System.currentTimeMillis();
+        for (Map.Entry<UUID, Map<LocalDateTime, List<SensorMeasurement>>> deviceEntry : byDeviceHour.entrySet()) {
+            UUID deviceId = deviceEntry.getKey();
+            DeviceHours state = devices.computeIfAbsent(deviceId, id -> new DeviceHours());
+
+            synchronized (state) {
+                for (Map.Entry<LocalDateTime, List<SensorMeasurement>> hourEntry : deviceEntry.getValue().entrySet()) {
+                    LocalDateTime hour = hourEntry.getKey();
+                    HourlyAccumulator accumulator = state.openHours.get(hour);
+
+                    if (accumulator == null ? state.needsSeed(hour) : accumulator.stale) {
+                        state.openHours.put(hour, seedFromDatabase(deviceId, hour));
+                    } else {
+                        if (accumulator == null) {
+                            accumulator = new HourlyAccumulator();
+                            state.openHours.put(hour, accumulator);
+                        }
+                        for (SensorMeasurement measurement : hourEntry.getValue()) {
+                            accumulator.add(measurement.getMeasurementValue());
+                        }
+                    }
+
+                    for (SensorMeasurement measurement : hourEntry.getValue()) {
+                        state.accept(measurement.getTimestamp(), now);
+                    }
+                }
+            }
+        }
+
+        markStaleOnRollback(byDeviceHour);
+    }
+
+    public List<HourlyAggregateDTO> collectDueHours(Duration allowedLateness, Duration idleTimeout) {
+        long now = System.currentTimeMillis();
+        List<HourlyAggregateDTO> due = new ArrayList<>();
+        List<UUID> staleDevices = new ArrayList<>();
+        List<LocalDateTime> staleHours = new ArrayList<>();
+
+        devices.forEach((deviceId, state) -> {
+            synchronized (state) {
+                boolean idle = now - state.lastActivityMillis >= idleTimeout.toMillis();
+                for (Map.Entry<LocalDateTime, HourlyAccumulator> entry : state.openHours.entrySet()) {
+                    LocalDateTime hour = entry.getKey();
+                    HourlyAccumulator accumulator = entry.getValue();
+                    boolean passedWatermark = !hour.plusHours(1).plus(allowedLateness).isAfter(state.watermark);
+
+                    if (!idle && !passedWatermark) {
+                        continue;
+                    }
+                    if (accumulator.stale) {
+                        staleDevices.add(deviceId);
+                        staleHours.add(hour);
+                    } else if (!accumulator.isEmpty()) {
+                        due.add(accumulator.toAggregate(deviceId, hour));
+                    }
+                }
+            }
+        });
+
+        for (int i = 0; i < staleDevices.size(); i++) {
+            LocalDateTime hour = staleHours.get(i);
+            HourlyAccumulator stored = aggregateStored(staleDevices.get(i), hour);
+            if (!stored.isEmpty()) {
+                due.add(stored.toAggregate(staleDevices.get(i), hour));
+            }
+        }
+        return due;
+    }
+
+    public void markClosed(List<HourlyAggregateDTO> aggregates) {
+        for (HourlyAggregateDTO aggregate : aggregates) {
+            DeviceHours state = devices.get(aggregate.getDeviceId());
+            if (state == null) {
+                continue;
+            }
+
+            synchronized (state) {
+                HourlyAccumulator accumulator = state.openHours.get(aggregate.getHour());
+                if (accumulator != null && (accumulator.stale || accumulator.count == aggregate.getMeasurementCount())) {
+                    state.openHours.remove(aggregate.getHour());
+                }
+                state.close(aggregate.getHour());
+            }
+        }
+    }
+
+    public void forget(UUID deviceId) {
+        devices.remove(deviceId);
+    }
+
+    public void handOff(Collection<UUID> deviceIds) {
+        for (UUID deviceId : deviceIds) {
+            DeviceHours state = devices.get(deviceId);
+            if (state == null) {
+                continue;
+            }
+            synchronized (state) {
+                markStale(state, state.openHours.keySet());
+                state.trackedSince = null;
+            }
+            log.debug("[REPLICA {}] Device {} handed off to another replica, its open hours will be reseeded",
+                    replicaId, deviceId);
+        }
+    }
+
+    private HourlyAccumulator seedFromDatabase(UUID deviceId, LocalDateTime hour) {
+        HourlyAccumulator accumulator = aggregateStored(deviceId, hour);
+        log.debug("[REPLICA {}] Seeded hour {} of device {} from database: {} measurements",
+                replicaId, hour, deviceId, accumulator.count);
+        return accumulator;
+    }
+
+    private HourlyAccumulator aggregateStored(UUID deviceId, LocalDateTime hour) {
+        HourlyAccumulator accumulator = new HourlyAccumulator();
+        measurementBatchRepository.aggregate(deviceId, hour, hour.plusHours(1))
+                .ifPresent(accumulator::merge);
+
+        LocalDate day = hour.toLocalDate();
+        List<MeasurementBlock> blocks = blockRepository.findBlocks(deviceId, day, day.plusDays(1), 1);
+        if (!blocks.isEmpty()) {
+            long start = MeasurementBlockCodec.toMicros(hour);
+            long end = MeasurementBlockCodec.toMicros(hour.plusHours(1));
+            MeasurementBlockCodec.Block block = MeasurementBlockCodec.decode(blocks.get(0).getData());
+            for (int i = 0; i < block.size(); i++) {
+                long timestamp = block.timestampAt(i);
+                if (timestamp >= start && timestamp < end) {
+                    accumulator.add(block.valueAt(i));
+                }
+            }
+        }
+        return accumulator;
+    }
+
+    private void markStaleOnRollback(Map<UUID, Map<LocalDateTime, List<SensorMeasurement>>> touched) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || touched.isEmpty()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                touched.forEach((deviceId, hours) -> {
+                    DeviceHours state = devices.get(deviceId);
+                    if (state != null) {
+                        synchronized (state) {
+                            markStale(state, hours.keySet());
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private static void markStale(DeviceHours state, Set<LocalDateTime> hours) {
+        for (LocalDateTime hour : hours) {
+            HourlyAccumulator accumulator = state.openHours.get(hour);
+            if (accumulator != null) {
+                accumulator.stale = true;
+            }
+        }
+    }
+
+    private static final class DeviceHours {
+
+        private final Map<LocalDateTime, HourlyAccumulator> openHours = new HashMap<>();
+        private LocalDateTime trackedSince;
+        private LocalDateTime watermark;
+        private LocalDateTime closedBefore;
+        private long lastActivityMillis;
+
+        boolean needsSeed(LocalDateTime hour) {
+            boolean continuous = trackedSince != null && !trackedSince.isAfter(hour);
+            boolean alreadyClosed = closedBefore != null && hour.isBefore(closedBefore);
+            return !continuous || alreadyClosed;
+        }
+
+        void accept(LocalDateTime timestamp, long now) {
+            if (trackedSince == null) {
+                trackedSince = timestamp;
+            }
+            if (watermark == null || timestamp.isAfter(watermark)) {
+                watermark = timestamp;
+            }
+            lastActivityMillis = now;
+        }
+
+        void close(LocalDateTime hour) {
+            LocalDateTime end = hour.plusHours(1);
+            if (closedBefore == null || end.isAfter(closedBefore)) {
+                closedBefore = end;
+            }
+        }
+    }
+
+    private static final class HourlyAccumulator {
+
+        private double sum;
+        private int count;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private boolean stale;
+
+        void add(double value) {
+            sum += value;
+            count++;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        void merge(HourlyAggregateDTO aggregate) {
+            sum += aggregate.getTotalConsumption();
+            count += aggregate.getMeasurementCount();
+            min = Math.min(min, aggregate.getMinMeasurement());
+            max = Math.max(max, aggregate.getMaxMeasurement());
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+
+        HourlyAggregateDTO toAggregate(UUID deviceId, LocalDateTime hour) {
+            return new HourlyAggregateDTO(deviceId, hour, sum, count, min, max);
+        }
+    }
+}
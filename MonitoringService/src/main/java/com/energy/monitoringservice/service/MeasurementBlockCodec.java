@@ -0,0 +1,245 @@
+package com.energy.monitoringservice.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+public final class MeasurementBlockCodec {
+
+    private MeasurementBlockCodec() {
+    }
+
+    public static byte[] encode(long[] timestamps, double[] values, int count) {
+        BitWriter out = new BitWriter(16 + count * 3);
+        out.write(count, 32);
+        if (count == 0) {
+            return out.toByteArray();
+        }
+
+        out.write(timestamps[0], 64);
+        out.write(Double.doubleToRawLongBits(values[0]), 64);
+
+        long previousTimestamp = timestamps[0];
+        long previousDelta = 0;
+        long previousBits = Double.doubleToRawLongBits(values[0]);
+        int previousLeading = Integer.MAX_VALUE;
+        int previousTrailing = 0;
+
+        for (int i = 1; i < count; i++) {
+            long delta = timestamps[i] - previousTimestamp;
+            writeDeltaOfDelta(out, delta - previousDelta);
+            previousTimestamp = timestamps[i];
+            previousDelta = delta;
+
+            long bits = Double.doubleToRawLongBits(values[i]);
+            long xor = bits ^ previousBits;
+            previousBits = bits;
+
+            if (xor == 0) {
+                out.writeBit(false);
+                continue;
+            }
+            out.writeBit(true);
+
+            int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading != Integer.MAX_VALUE && leading >= previousLeading && trailing >= previousTrailing) {
+                out.writeBit(false);
+                out.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int significant = 64 - leading - trailing;
+                out.writeBit(true);
+                out.write(leading, 5);
+                out.write(significant == 64 ? 0 : significant, 6);
+                out.write(xor >>> trailing, significant);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static Block decode(byte[] data) {
+        BitReader in = new BitReader(data);
+        int count = (int) in.read(32);
+        long[] timestamps = new long[count];
+        double[] values = new double[count];
+        if (count == 0) {
+            return new Block(timestamps, values);
+        }
+
+        timestamps[0] = in.read(64);
+        long previousBits = in.read(64);
+        values[0] = Double.longBitsToDouble(previousBits);
+
+        long previousDelta = 0;
+        int previousLeading = 0;
+        int previousTrailing = 0;
+
+        for (int i = 1; i < count; i++) {
+            long delta = previousDelta + readDeltaOfDelta(in);
+            timestamps[i] = timestamps[i - 1] + delta;
+            previousDelta = delta;
+
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    previousLeading = (int) in.read(5);
+                    int significant = (int) in.read(6);
+                    if (significant == 0) {
+                        significant = 64;
+                    }
+                    previousTrailing = 64 - previousLeading - significant;
+                }
+                long xor = in.read(64 - previousLeading - previousTrailing) << previousTrailing;
+                previousBits ^= xor;
+            }
+            values[i] = Double.longBitsToDouble(previousBits);
+        }
+        return new Block(timestamps, values);
+    }
+
+    public static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    public static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static void writeDeltaOfDelta(BitWriter out, long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            out.writeBit(false);
+        } else if (fits(deltaOfDelta, 7)) {
+            out.write(0b10, 2);
+            out.write(deltaOfDelta, 7);
+        } else if (fits(deltaOfDelta, 9)) {
+            out.write(0b110, 3);
+            out.write(deltaOfDelta, 9);
+        } else if (fits(deltaOfDelta, 12)) {
+            out.write(0b1110, 4);
+            out.write(deltaOfDelta, 12);
+        } else if (fits(deltaOfDelta, 32)) {
+            out.write(0b11110, 5);
+            out.write(deltaOfDelta, 32);
+        } else {
+            out.write(0b11111, 5);
+            out.write(deltaOfDelta, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader in) {
+        if (!in.readBit()) {
+            return 0;
+        }
+        if (!in.readBit()) {
+            return signExtend(in.read(7), 7);
+        }
+        if (!in.readBit()) {
+            return signExtend(in.read(9), 9);
+        }
+        if (!in.readBit()) {
+            return signExtend(in.read(12), 12);
+        }
+        if (!in.readBit()) {
+            return signExtend(in.read(32), 32);
+        }
+        return in.read(64);
+    }
+
+    private static boolean fits(long value, int bits) {
+        long limit = 1L << (bits - 1);
+        return value >= -limit && value < limit;
+    }
+
+    private static long signExtend(long value, int bits) {
+        int shift = 64 - bits;
+        return (value << shift) >> shift;
+    }
+
+    public static final class Block {
+
+        private final long[] timestamps;
+        private final double[] values;
+
+        Block(long[] timestamps, double[] values) {
+            this.timestamps = timestamps;
+            this.values = values;
+        }
+
+        public int size() {
+            return timestamps.length;
+        }
+
+        public long timestampAt(int index) {
+            return timestamps[index];
+        }
+
+        public double valueAt(int index) {
+            return values[index];
+        }
+    }
+
+    private static final class BitWriter {
+
+        private byte[] buffer;
+        private int bitPosition;
+
+        BitWriter(int initialBytes) {
+            buffer = new byte[Math.max(16, initialBytes)];
+        }
+
+        void writeBit(boolean bit) {
+            ensureCapacity(1);
+            if (bit) {
+                buffer[bitPosition >>> 3] |= (byte) (0x80 >>> (bitPosition & 7));
+            }
+            bitPosition++;
+        }
+
+        void write(long value, int bits) {
+            ensureCapacity(bits);
+            for (int i = bits - 1; i >= 0; i--) {
+                if (((value >>> i) & 1L) != 0) {
+                    buffer[bitPosition >>> 3] |= (byte) (0x80 >>> (bitPosition & 7));
+                }
+                bitPosition++;
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, (bitPosition + 7) >>> 3);
+        }
+
+        private void ensureCapacity(int bits) {
+            int needed = (bitPosition + bits + 7) >>> 3;
+            if (needed > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(needed, buffer.length * 2));
+            }
+        }
+    }
+
+    private static final class BitReader {
+
+        private final byte[] buffer;
+        private int bitPosition;
+
+        BitReader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        boolean readBit() {
+            boolean bit = (buffer[bitPosition >>> 3] & (0x80 >>> (bitPosition & 7))) != 0;
+            bitPosition++;
+            return bit;
+        }
+
+        long read(int bits) {
+            long value = 0;
+            for (int i = 0; i < bits; i++) {
+                value = (value << 1) | (readBit() ? 1L : 0L);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.entity.SensorMeasurement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Component
+public class MeasurementDeduplicator {
+
+    private final ConcurrentMap<UUID, RecentTimestamps> windows = new ConcurrentHashMap<>();
+
+    @Value("${monitoring.dedup.window-size:64}")
+    private int windowSize;
+
+    public boolean isKnownDuplicate(UUID deviceId, LocalDateTime timestamp) {
+        RecentTimestamps window = windows.get(deviceId);
+        return window != null && window.contains(toEpochSecond(timestamp));
+    }
+
+    public void recordAccepted(Collection<SensorMeasurement> measurements) {
+        if (measurements.isEmpty()) {
+            return;
+        }
+
+        List<SensorMeasurement> accepted = List.copyOf(measurements);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(accepted);
+                }
+            });
+        } else {
+            remember(accepted);
+        }
+    }
+
+    public void forget(UUID deviceId) {
+        windows.remove(deviceId);
+    }
+
+    private void remember(List<SensorMeasurement> measurements) {
+        for (SensorMeasurement measurement : measurements) {
+            windows.computeIfAbsent(measurement.getDeviceId(), id -> new RecentTimestamps(windowSize))
+                    .add(toEpochSecond(measurement.getTimestamp()));
+        }
+    }
+
+    private static long toEpochSecond(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static final class RecentTimestamps {
+
+        private final long[] timestamps;
+        private int next;
+        private int size;
+        private long latest = Long.MIN_VALUE;
+
+        RecentTimestamps(int capacity) {
+            this.timestamps = new long[Math.max(capacity, 1)];
+        }
+
+        synchronized boolean contains(long timestamp) {
+            if (timestamp > latest) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (timestamps[i] == timestamp) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized void add(long timestamp) {
+            timestamps[next] = timestamp;
+            next = (next + 1) % timestamps.length;
+            size = Math.min(size + 1, timestamps.length);
+            latest = Math.max(latest, timestamp);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.energy.monitoringservice.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Component
+@DependsOn("entityManagerFactory")
+public class MeasurementPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(MeasurementPartitionManager.class);
+
+    private static final String TABLE = "sensor_measurements";
+    private static final String LEGACY_TABLE = "sensor_measurements_legacy";
+    private static final String PARTITION_PREFIX = TABLE + "_p";
+    private static final String DEFAULT_PARTITION = TABLE + "_default";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<LocalDate> knownPartitions = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<LocalDate, Long> failedPartitions = new ConcurrentHashMap<>();
+
+    @Value("${monitoring.replica.id:1}")
+    private int replicaId;
+
+    @Value("${monitoring.partitions.interval:DAYS}")
+    private ChronoUnit interval;
+
+    @Value("${monitoring.partitions.premake:7}")
+    private int premake;
+
+    @Value("${monitoring.partitions.retention-days:0}")
+    private int retentionDays;
+
+    @Value("${monitoring.partitions.retry-after-ms:60000}")
+    private long retryAfterMs;
+
+    @Autowired
+    public MeasurementPartitionManager(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (interval != ChronoUnit.DAYS && interval != ChronoUnit.MONTHS) {
+            throw new IllegalStateException("monitoring.partitions.interval must be DAYS or MONTHS, got " + interval);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('" + TABLE + "'))");
+            String kind = jdbcTemplate.queryForObject(
+                    "SELECT c.relkind::text FROM pg_class c WHERE c.oid = to_regclass(?)", String.class, TABLE);
+            if (!"p".equals(kind)) {
+                convertToPartitioned(kind != null);
+            }
+        });
+
+        loadKnownPartitions();
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${monitoring.partitions.maintenance-cron:0 15 0 * * *}")
+    public void maintainPartitions() {
+        LocalDate current = periodStart(LocalDate.now());
+        failedPartitions.clear();
+        for (int i = 0; i <= premake; i++) {
+            ensurePartition(current.plus(i, interval));
+        }
+
+        if (retentionDays > 0) {
+            dropPartitionsBefore(periodStart(LocalDate.now().minusDays(retentionDays)));
+        }
+    }
+
+    public void ensurePartitionsFor(Collection<LocalDateTime> timestamps) {
+        long now = System.currentTimeMillis();
+        Set<LocalDate> missing = new TreeSet<>();
+        for (LocalDateTime timestamp : timestamps) {
+            LocalDate start = periodStart(timestamp.toLocalDate());
+            if (!knownPartitions.contains(start)) {
+                missing.add(start);
+            }
+        }
+        for (LocalDate start : missing) {
+            Long failedAt = failedPartitions.get(start);
+            if (failedAt == null || now - failedAt >= retryAfterMs) {
+                ensurePartition(start);
+            }
+        }
+    }
+
+    private void convertToPartitioned(boolean legacyExists) {
+        log.info("[REPLICA {}] Converting {} to a range-partitioned table", replicaId, TABLE);
+
+        if (legacyExists) {
+            jdbcTemplate.execute("LOCK TABLE " + TABLE + " IN ACCESS EXCLUSIVE MODE");
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + LEGACY_TABLE);
+        }
+
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (" +
+                "id bigint NOT NULL, " +
+                "device_id uuid NOT NULL, " +
+                "timestamp timestamp(6) NOT NULL, " +
+                "measurement_value float8 NOT NULL, " +
+                "created_at timestamp(6) NOT NULL" +
+                ") PARTITION BY RANGE (timestamp)");
+        jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF " + TABLE + " DEFAULT");
+
+        if (legacyExists) {
+            List<LocalDate> days = jdbcTemplate.queryForList(
+                    "SELECT DISTINCT timestamp::date FROM " + LEGACY_TABLE, LocalDate.class);
+            new TreeSet<>(days.stream().map(this::periodStart).toList())
+                    .forEach(start -> createPartition(start));
+
+            int copied = jdbcTemplate.update("INSERT INTO " + TABLE +
+                    " (id, device_id, timestamp, measurement_value, created_at) " +
+                    "SELECT id, device_id, timestamp, measurement_value, created_at FROM " + LEGACY_TABLE);
+
+            jdbcTemplate.execute("DROP TABLE " + LEGACY_TABLE);
+            log.info("[REPLICA {}] Copied {} measurements into partitioned {}", replicaId, copied, TABLE);
+        }
+
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + TABLE + "_pkey PRIMARY KEY (id, timestamp)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE +
+                " ADD CONSTRAINT uk_sensor_device_timestamp UNIQUE (device_id, timestamp)");
+    }
+
+    private void loadKnownPartitions() {
+        jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = to_regclass(?)", String.class, TABLE)
+                .forEach(name -> {
+                    LocalDate start = parsePartitionStart(name);
+                    if (start != null) {
+                        knownPartitions.add(start);
+                    }
+                });
+    }
+
+    private void ensurePartition(LocalDate start) {
+        if (knownPartitions.contains(start)) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> createPartitionMovingDefaultRows(start));
+            failedPartitions.remove(start);
+        } catch (Exception e) {
+            failedPartitions.put(start, System.currentTimeMillis());
+            log.warn("[REPLICA {}] Could not create partition for {}: {}. Rows stay in {}, retrying in {} ms",
+                    replicaId, start, e.getMessage(), DEFAULT_PARTITION, retryAfterMs);
+        }
+    }
+
+    private void createPartitionMovingDefaultRows(LocalDate start) {
+        LocalDate end = start.plus(1, interval);
+        String range = " WHERE timestamp >= '" + start + "' AND timestamp < '" + end + "'";
+
+        jdbcTemplate.execute("LOCK TABLE " + DEFAULT_PARTITION + " IN EXCLUSIVE MODE");
+        Boolean stranded = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + range + ")", Boolean.class);
+        if (!Boolean.TRUE.equals(stranded)) {
+            createPartition(start);
+            return;
+        }
+
+        jdbcTemplate.execute("CREATE TEMP TABLE stranded_measurements ON COMMIT DROP AS " +
+                "SELECT * FROM " + DEFAULT_PARTITION + range);
+        int moved = jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + range);
+        createPartition(start);
+        jdbcTemplate.update("INSERT INTO " + TABLE + " SELECT * FROM stranded_measurements");
+        log.info("[REPLICA {}] Moved {} measurements from {} into {}",
+                replicaId, moved, DEFAULT_PARTITION, partitionName(start));
+    }
+
+    private void createPartition(LocalDate start) {
+        LocalDate end = start.plus(1, interval);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(start) +
+                " PARTITION OF " + TABLE +
+                " FOR VALUES FROM ('" + start + "') TO ('" + end + "')");
+        knownPartitions.add(start);
+        log.info("[REPLICA {}] Partition {} covers [{}, {})", replicaId, partitionName(start), start, end);
+    }
+
+    private void dropPartitionsBefore(LocalDate cutoff) {
+        for (LocalDate start : new TreeSet<>(knownPartitions)) {
+            if (!start.plus(1, interval).isAfter(cutoff)) {
+                try {
+                    transactionTemplate.executeWithoutResult(status ->
+                            jdbcTemplate.execute("DROP TABLE IF EXISTS " + partitionName(start)));
+                    knownPartitions.remove(start);
+                    log.info("[REPLICA {}] Dropped expired partition {}", replicaId, partitionName(start));
+                } catch (Exception e) {
+                    log.warn("[REPLICA {}] Could not drop partition {}: {}",
+                            replicaId, partitionName(start), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private LocalDate periodStart(LocalDate date) {
+        return interval == ChronoUnit.MONTHS ? date.withDayOfMonth(1) : date;
+    }
+
+    private String partitionName(LocalDate start) {
+        return PARTITION_PREFIX + start.format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+
+    private LocalDate parsePartitionStart(String name) {
+        if (!name.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(name.substring(PARTITION_PREFIX.length()), DateTimeFormatter.BASIC_ISO_DATE);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.dto.TimeValueDTO;
+import com.energy.monitoringservice.entity.MeasurementBlock;
+import com.energy.monitoringservice.entity.SensorMeasurement;
+import com.energy.monitoringservice.repository.MeasurementBlockBatchRepository;
+import com.energy.monitoringservice.repository.SensorMeasurementBatchRepository;
+import com.energy.monitoringservice.repository.SensorMeasurementBatchRepository.PointConsumer;
+import com.energy.monitoringservice.repository.SensorMeasurementRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Service
+public class MeasurementReader {
+
+    private final SensorMeasurementRepository measurementRepository;
+    private final SensorMeasurementBatchRepository measurementBatchRepository;
+    private final MeasurementBlockBatchRepository blockRepository;
+
+    @Value("${monitoring.cold-tier.read-blocks:31}")
+    private int readBlocks;
+
+    @Autowired
+    public MeasurementReader(SensorMeasurementRepository measurementRepository,
+                             SensorMeasurementBatchRepository measurementBatchRepository,
+                             MeasurementBlockBatchRepository blockRepository) {
+        this.measurementRepository = measurementRepository;
+        this.measurementBatchRepository = measurementBatchRepository;
+        this.blockRepository = blockRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public void forEach(UUID deviceId, LocalDateTime start, LocalDateTime end, int fetchSize,
+                        Consumer<SensorMeasurement> consumer) {
+        ColdCursor cold = new ColdCursor(deviceId, start, end, false);
+        PointConsumer coldPoints = cold.asMeasurements(consumer);
+        measurementBatchRepository.forEachByDevice(deviceId, start, end, fetchSize, measurement -> {
+            cold.drainBefore(MeasurementBlockCodec.toMicros(measurement.getTimestamp()), coldPoints);
+            consumer.accept(measurement);
+        });
+        cold.drainBefore(Long.MAX_VALUE, coldPoints);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TimeValueDTO> findSeries(UUID deviceId, LocalDateTime start, LocalDateTime end, int fetchSize) {
+        List<TimeValueDTO> series = new ArrayList<>();
+        PointConsumer collect = (timestamp, value) -> series.add(new TimeValueDTO(timestamp, value));
+        ColdCursor cold = new ColdCursor(deviceId, start, end, false);
+        measurementBatchRepository.forEachPoint(deviceId, start, end, fetchSize, (timestamp, value) -> {
+            cold.drainBefore(MeasurementBlockCodec.toMicros(timestamp), collect);
+            collect.accept(timestamp, value);
+        });
+        cold.drainBefore(Long.MAX_VALUE, collect);
+        return series;
+    }
+
+    @Transactional(readOnly = true)
+    public List<SensorMeasurement> findRange(UUID deviceId, LocalDateTime start, LocalDateTime end, int fetchSize) {
+        List<SensorMeasurement> measurements = new ArrayList<>();
+        forEach(deviceId, start, end, fetchSize, measurements::add);
+        return measurements;
+    }
+
+    @Transactional(readOnly = true)
+    public List<SensorMeasurement> findPage(UUID deviceId, LocalDateTime after, int limit) {
+        List<SensorMeasurement> hot = after == null
+                ? measurementRepository.findByDeviceIdOrderByTimestampAsc(deviceId, Limit.of(limit))
+                : measurementRepository.findByDeviceIdAndTimestampAfterOrderByTimestampAsc(deviceId, after, Limit.of(limit));
+
+        ColdCursor cold = new ColdCursor(deviceId, after, null, true);
+        List<SensorMeasurement> page = new ArrayList<>(limit);
+        for (SensorMeasurement measurement : hot) {
+            cold.drainBefore(MeasurementBlockCodec.toMicros(measurement.getTimestamp()),
+                    cold.limitedTo(page, limit));
+            if (page.size() == limit) {
+                return page;
+            }
+            page.add(measurement);
+        }
+        cold.drainBefore(Long.MAX_VALUE, cold.limitedTo(page, limit));
+        return page;
+    }
+
+    private final class ColdCursor {
+
+        private final UUID deviceId;
+        private final long startMicros;
+        private final long endMicros;
+        private final LocalDate endDay;
+        private final Deque<MeasurementBlock> fetched = new ArrayDeque<>();
+        private LocalDate nextDay;
+        private MeasurementBlockCodec.Block block;
+        private int index;
+        private boolean exhausted;
+        private boolean stopped;
+
+        ColdCursor(UUID deviceId, LocalDateTime start, LocalDateTime end, boolean exclusiveStart) {
+            this.deviceId = deviceId;
+            this.startMicros = start != null
+                    ? MeasurementBlockCodec.toMicros(start) + (exclusiveStart ? 1 : 0)
+                    : Long.MIN_VALUE;
+            this.endMicros = end != null ? MeasurementBlockCodec.toMicros(end) : Long.MAX_VALUE;
+            this.nextDay = start != null ? start.toLocalDate() : null;
+            this.endDay = end != null ? end.minusNanos(1_000).toLocalDate().plusDays(1) : null;
+        }
+
+        void drainBefore(long hotMicros, PointConsumer consumer) {
+            while (!stopped && advance()) {
+                long timestamp = block.timestampAt(index);
+                if (timestamp > hotMicros) {
+                    return;
+                }
+                if (timestamp < hotMicros) {
+                    consumer.accept(MeasurementBlockCodec.fromMicros(timestamp), block.valueAt(index));
+                }
+                index++;
+            }
+        }
+
+        PointConsumer asMeasurements(Consumer<SensorMeasurement> consumer) {
+            return (timestamp, value) -> {
+                SensorMeasurement measurement = new SensorMeasurement();
+                measurement.setDeviceId(deviceId);
+                measurement.setTimestamp(timestamp);
+                measurement.setMeasurementValue(value);
+                consumer.accept(measurement);
+            };
+        }
+
+        PointConsumer limitedTo(List<SensorMeasurement> page, int limit) {
+            return asMeasurements(measurement -> {
+                page.add(measurement);
+                if (page.size() == limit) {
+                    stopped = true;
+                }
+            });
+        }
+
+        private boolean advance() {
+            while (true) {
+                if (block != null && index < block.size()) {
+                    long timestamp = block.timestampAt(index);
+                    if (timestamp < startMicros) {
+                        index++;
+                        continue;
+                    }
+                    if (timestamp >= endMicros) {
+                        block = null;
+                        fetched.clear();
+                        exhausted = true;
+                        return false;
+                    }
+                    return true;
+                }
+
+                block = null;
+                if (fetched.isEmpty()) {
+                    if (exhausted) {
+                        return false;
+                    }
+                    List<MeasurementBlock> blocks = blockRepository.findBlocks(deviceId, nextDay, endDay, readBlocks);
+                    exhausted = blocks.size() < readBlocks;
+                    if (blocks.isEmpty()) {
+                        return false;
+                    }
+                    nextDay = blocks.get(blocks.size() - 1).getDay().plusDays(1);
+                    fetched.addAll(blocks);
+                }
+                block = MeasurementBlockCodec.decode(fetched.poll().getData());
+                index = 0;
+            }
+        }
+    }
+}
@@ -1,30 +1,42 @@
 package com.energy.monitoringservice.service;
 
 import com.energy.monitoringservice.config.RabbitMQConfig;
+import com.energy.monitoringservice.dto.DrainAckDTO;
+import com.energy.monitoringservice.dto.MeasurementEnvelopeDTO;
 import com.energy.monitoringservice.dto.SensorDataDTO;
 import com.energy.monitoringservice.dto.SyncMessageDTO;
-import com.energy.monitoringservice.dto.WebSocketMessageDTO;
 import com.energy.monitoringservice.entity.DeviceCache;
-import com.energy.monitoringservice.entity.HourlyEnergyConsumption;
 import com.energy.monitoringservice.entity.SensorMeasurement;
+import com.energy.monitoringservice.repository.ConsumptionRollupBatchRepository;
 import com.energy.monitoringservice.repository.DeviceCacheRepository;
+import com.energy.monitoringservice.repository.DeviceStatsBatchRepository;
 import com.energy.monitoringservice.repository.HourlyConsumptionRepository;
+import com.energy.monitoringservice.repository.MeasurementBlockBatchRepository;
+import com.energy.monitoringservice.repository.SensorMeasurementBatchRepository;
 import com.energy.monitoringservice.repository.SensorMeasurementRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class MonitoringConsumerService {
@@ -32,201 +44,241 @@ public class MonitoringConsumerService {
     private static final Logger log = LoggerFactory.getLogger(MonitoringConsumerService.class);
 
     private final HourlyConsumptionRepository consumptionRepository;
+    private final ConsumptionRollupBatchRepository rollupBatchRepository;
     private final SensorMeasurementRepository measurementRepository;
+    private final SensorMeasurementBatchRepository measurementBatchRepository;
+    private final MeasurementBlockBatchRepository blockRepository;
     private final DeviceCacheRepository deviceCacheRepository;
+    private final DeviceStatsBatchRepository deviceStatsBatchRepository;
+    private final DeviceRegistry deviceRegistry;
+    private final HourlyAggregator hourlyAggregator;
+    private final MeasurementDeduplicator deduplicator;
+    private final MeasurementPartitionManager partitionManager;
+    private final DeviceDayVersions dayVersions;
+    private final CompactedDayGuard compactedDayGuard;
+    private final StripedExecutor stripedExecutor;
+    private final TransactionTemplate transactionTemplate;
     private final RabbitTemplate rabbitTemplate;
+    private final MessageConverter messageConverter;
 
     @Value("${monitoring.replica.id:1}")
     private int replicaId;
 
     @Autowired
     public MonitoringConsumerService(HourlyConsumptionRepository consumptionRepository,
+                                     ConsumptionRollupBatchRepository rollupBatchRepository,
                                      SensorMeasurementRepository measurementRepository,
+                                     SensorMeasurementBatchRepository measurementBatchRepository,
+                                     MeasurementBlockBatchRepository blockRepository,
                                      DeviceCacheRepository deviceCacheRepository,
-                                     RabbitTemplate rabbitTemplate) {
+                                     DeviceStatsBatchRepository deviceStatsBatchRepository,
+                                     DeviceRegistry deviceRegistry,
+                                     HourlyAggregator hourlyAggregator,
+                                     MeasurementDeduplicator deduplicator,
+                                     MeasurementPartitionManager partitionManager,
+                                     DeviceDayVersions dayVersions,
+                                     CompactedDayGuard compactedDayGuard,
+                                     StripedExecutor stripedExecutor,
+                                     TransactionTemplate transactionTemplate,
+                                     RabbitTemplate rabbitTemplate,
+                                     MessageConverter messageConverter) {
         this.consumptionRepository = consumptionRepository;
+        this.rollupBatchRepository = rollupBatchRepository;
         this.measurementRepository = measurementRepository;
+        this.measurementBatchRepository = measurementBatchRepository;
+        this.blockRepository = blockRepository;
         this.deviceCacheRepository = deviceCacheRepository;
+        this.deviceStatsBatchRepository = deviceStatsBatchRepository;
+        this.deviceRegistry = deviceRegistry;
+        this.hourlyAggregator = hourlyAggregator;
+        this.deduplicator = deduplicator;
+        this.partitionManager = partitionManager;
+        this.dayVersions = dayVersions;
+        this.compactedDayGuard = compactedDayGuard;
+        this.stripedExecutor = stripedExecutor;
+        this.transactionTemplate = transactionTemplate;
         this.rabbitTemplate = rabbitTemplate;
+        this.messageConverter = messageConverter;
     }
 
-    @RabbitListener(queues = "#{@ingestQueueName}")
-    @Transactional
-    public void processSensorData(SensorDataDTO sensorData) {
-        log.info("[REPLICA {}] Received sensor data: deviceId={}, timestamp={}, value={} kWh",
-                replicaId,
-                sensorData.getDeviceId(),
-                sensorData.getTimestamp(),
-                sensorData.getMeasurementValue());
-
-        if (!deviceCacheRepository.existsById(sensorData.getDeviceId())) {
-            log.warn("[REPLICA {}] REJECTED sensor data for unknown device: {}. Device not found in cache.",
-                    replicaId, sensorData.getDeviceId());
+    @RabbitListener(queues = "#{@ingestQueueName}", containerFactory = "ingestBatchContainerFactory")
+    public void processSensorData(List<Message> messages) {
+        long startTime = System.currentTimeMillis();
+        List<Map<String, Object>> drainMarkers = new ArrayList<>();
+        List<SensorDataDTO> batch = unpack(messages, drainMarkers);
+        if (batch.isEmpty()) {
+            handOffDrainedDevices(drainMarkers);
+            acknowledgeDrainMarkers(drainMarkers);
             return;
         }
+        log.debug("[REPLICA {}] Received batch of {} sensor readings in {} messages",
+                replicaId, batch.size(), messages.size());
 
-        boolean exists = measurementRepository.existsByDeviceIdAndTimestamp(
-                sensorData.getDeviceId(),
-                sensorData.getTimestamp()
-        );
+        List<SensorMeasurement> accepted = validateBatch(batch);
+        partitionManager.ensurePartitionsFor(accepted.stream().map(SensorMeasurement::getTimestamp).toList());
 
-        if (exists) {
-            log.warn("[REPLICA {}] REJECTED duplicate: deviceId={}, timestamp={}",
-                    replicaId,
-                    sensorData.getDeviceId(),
-                    sensorData.getTimestamp());
-            return;
+        List<List<SensorMeasurement>> byStripe = new ArrayList<>();
+        for (int i = 0; i < stripedExecutor.stripeCount(); i++) {
+            byStripe.add(new ArrayList<>());
+        }
+        for (SensorMeasurement measurement : accepted) {
+            byStripe.get(stripedExecutor.stripeOf(measurement.getDeviceId())).add(measurement);
         }
 
-        processValidSensorData(sensorData);
+        List<CompletableFuture<Integer>> stripes = new ArrayList<>();
+        for (int i = 0; i < byStripe.size(); i++) {
+            List<SensorMeasurement> measurements = byStripe.get(i);
+            if (!measurements.isEmpty()) {
+                stripes.add(stripedExecutor.submit(i, () -> transactionTemplate.execute(status -> persist(measurements))));
+            }
+        }
 
-        LocalDateTime currentTimestamp = sensorData.getTimestamp();
+        int saved;
+        try {
+            saved = CompletableFuture.allOf(stripes.toArray(new CompletableFuture[0]))
+                    .thenApply(done -> stripes.stream().mapToInt(CompletableFuture::join).sum())
+                    .join();
+        } catch (CompletionException e) {
+            log.error("[REPLICA {}] Ingest stripe failed, batch will be redelivered "
+                            + "(stripes that already committed are skipped as duplicates): {}",
+                    replicaId, e.getCause().getMessage(), e.getCause());
+            throw e;
+        }
 
-        if (currentTimestamp.getMinute() == 0 && currentTimestamp.getSecond() == 0) {
-            LocalDateTime previousHour = currentTimestamp.truncatedTo(ChronoUnit.HOURS).minusHours(1);
-            UUID deviceId = sensorData.getDeviceId();
+        handOffDrainedDevices(drainMarkers);
+        acknowledgeDrainMarkers(drainMarkers);
 
-            consumptionRepository.findByDeviceIdAndHour(deviceId, previousHour)
-                    .ifPresent(hourlyData -> {
-                        try {
-                            Map<String, Object> wsData = new HashMap<>();
-                            wsData.put("hour", hourlyData.getHour().toString());
-                            wsData.put("totalConsumption", hourlyData.getTotalConsumption());
-                            wsData.put("deviceId", deviceId.toString());
+        long elapsed = Math.max(System.currentTimeMillis() - startTime, 1);
+        log.info("[REPLICA {}] Ingested batch: received={}, saved={}, rejected={}, stripes={}, took={} ms ({} inserts/s)",
+                replicaId, batch.size(), saved, batch.size() - saved, stripes.size(),
+                elapsed, saved * 1000L / elapsed);
+    }
 
-                            log.info("[REPLICA {}] Broadcasting HOURLY AGGREGATE for device {} hour: {}",
-                                    replicaId, deviceId, previousHour);
-                            publishMeasurementUpdate(deviceId, wsData);
-                            log.info("WebSocket broadcast completed for hour: {}", previousHour);
+    private List<SensorDataDTO> unpack(List<Message> messages, List<Map<String, Object>> drainMarkers) {
+        List<SensorDataDTO> readings = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            Map<String, Object> headers = message.getMessageProperties().getHeaders();
+            if (headers.containsKey(RabbitMQConfig.DRAIN_TOKEN_HEADER)) {
+                drainMarkers.add(headers);
+                continue;
+            }
 
-                        } catch (Exception e) {
-                            log.error("[REPLICA {}] Failed to broadcast WebSocket message for {}: {}",
-                                    replicaId, deviceId, e.getMessage(), e);                        }
-                    });
+            try {
+                if (headers.containsKey(RabbitMQConfig.MEASUREMENT_ENVELOPE_HEADER)) {
+                    readings.addAll(convert(message, MeasurementEnvelopeDTO.class).toSensorData());
+                } else {
+                    readings.add(convert(message, SensorDataDTO.class));
+                }
+            } catch (MessageConversionException | IllegalArgumentException | IndexOutOfBoundsException e) {
+                log.warn("[REPLICA {}] REJECTED unreadable ingest message: {}", replicaId, e.getMessage());
+            }
         }
+        return readings;
     }
 
-    private void  processValidSensorData(SensorDataDTO sensorData) {
-        SensorMeasurement measurement = new SensorMeasurement(
-                sensorData.getDeviceId(),
-                sensorData.getTimestamp(),
-                sensorData.getMeasurementValue()
-        );
-        SensorMeasurement savedMeasurement = measurementRepository.save(measurement);
-
-        log.info("[REPLICA {}] Saved measurement: id={}, deviceId={}, timestamp={}, value={} kWh",
-                replicaId,
-                savedMeasurement.getId(),
-                savedMeasurement.getDeviceId(),
-                savedMeasurement.getTimestamp(),
-                savedMeasurement.getMeasurementValue());
-
-        LocalDateTime currentTimestamp = sensorData.getTimestamp();
-        if (currentTimestamp.getMinute() == 0 && currentTimestamp.getSecond() == 0) {
-            LocalDateTime previousHour = currentTimestamp.truncatedTo(ChronoUnit.HOURS).minusHours(1);
-            createHourlyAggregateForCompletedHour(sensorData.getDeviceId(), previousHour);
-        }
+    private <T> T convert(Message message, Class<T> type) {
+        message.getMessageProperties().setInferredArgumentType(type);
+        return type.cast(messageConverter.fromMessage(message));
     }
 
-    private void createHourlyAggregateForCompletedHour(UUID deviceId, LocalDateTime hourTimestamp) {
-        LocalDateTime hourStart = hourTimestamp;
-        LocalDateTime hourEnd = hourTimestamp.plusHours(1);
-
-        List<SensorMeasurement> measurements = measurementRepository.findByDeviceIdAndTimestampBetween(
-                deviceId, hourStart, hourEnd);
+    private void handOffDrainedDevices(List<Map<String, Object>> drainMarkers) {
+        for (Map<String, Object> marker : drainMarkers) {
+            if (!(marker.get(RabbitMQConfig.DRAIN_DEVICES_HEADER) instanceof List<?> devices) || devices.isEmpty()) {
+                continue;
+            }
+            List<UUID> deviceIds = new ArrayList<>(devices.size());
+            for (Object deviceId : devices) {
+                try {
+                    deviceIds.add(UUID.fromString(deviceId.toString()));
+                } catch (IllegalArgumentException e) {
+                    log.warn("[REPLICA {}] Ignoring malformed device id {} in drain marker", replicaId, deviceId);
+                }
+            }
+            hourlyAggregator.handOff(deviceIds);
+        }
+    }
 
-        if (measurements.isEmpty()) {
-            log.debug("[REPLICA {}] No measurements found for device {} in hour {}",
-                    replicaId, deviceId, hourTimestamp);
-            return;
+    private void acknowledgeDrainMarkers(List<Map<String, Object>> drainMarkers) {
+        for (Map<String, Object> marker : drainMarkers) {
+            Object replyTo = marker.get(RabbitMQConfig.DRAIN_REPLY_TO_HEADER);
+            if (replyTo == null) {
+                continue;
+            }
+            long token = ((Number) marker.get(RabbitMQConfig.DRAIN_TOKEN_HEADER)).longValue();
+            try {
+                rabbitTemplate.convertAndSend("", replyTo.toString(), new DrainAckDTO(replicaId, token));
+                log.debug("[REPLICA {}] Acknowledged drain marker {}", replicaId, token);
+            } catch (Exception e) {
+                log.warn("[REPLICA {}] Could not acknowledge drain marker {}: {}", replicaId, token, e.getMessage());
+            }
         }
+    }
 
-        double totalConsumption = measurements.stream()
-                .mapToDouble(SensorMeasurement::getMeasurementValue)
-                .sum();
+    private int persist(List<SensorMeasurement> measurements) {
+        List<SensorMeasurement> fresh = compactedDayGuard.withoutCompacted(measurements);
+        List<SensorMeasurement> saved = measurementBatchRepository.insertIgnoringDuplicates(fresh);
+        deduplicator.recordAccepted(saved);
 
-        HourlyEnergyConsumption hourlyData = new HourlyEnergyConsumption();
-        hourlyData.setDeviceId(deviceId);
-        hourlyData.setHour(hourTimestamp);
-        hourlyData.setTotalConsumption(totalConsumption);
-        hourlyData.setCreatedAt(LocalDateTime.now());
+        if (saved.size() < measurements.size()) {
+            log.warn("[REPLICA {}] REJECTED {} duplicates already stored in the database",
+                    replicaId, measurements.size() - saved.size());
+        }
 
-        HourlyEnergyConsumption saved = consumptionRepository.save(hourlyData);
+        deviceStatsBatchRepository.recordMeasurements(saved);
+        hourlyAggregator.record(saved);
+        saved.forEach(measurement ->
+                dayVersions.touch(measurement.getDeviceId(), measurement.getTimestamp().toLocalDate()));
+        return saved.size();
+    }
 
-        log.info("[REPLICA {}] HOURLY AGGREGATE CREATED: device={}, hour={}, consumption={} kWh, measurements={}",
-                replicaId, deviceId, hourTimestamp, totalConsumption, measurements.size());
+    private List<SensorMeasurement> validateBatch(List<SensorDataDTO> batch) {
+        Set<UUID> deviceIds = new HashSet<>();
+        for (SensorDataDTO sensorData : batch) {
+            if (sensorData.getDeviceId() != null) {
+                deviceIds.add(sensorData.getDeviceId());
+            }
+        }
 
-        checkOverconsumptionForCompletedHour(deviceId, hourTimestamp, totalConsumption);
-    }
+        Set<UUID> knownDevices = deviceRegistry.findKnown(deviceIds);
 
-    private void checkOverconsumptionForCompletedHour(UUID deviceId, LocalDateTime hourTimestamp, double totalConsumption) {
-        DeviceCache deviceCache = deviceCacheRepository.findById(deviceId).orElse(null);
+        Map<UUID, Set<LocalDateTime>> seenInBatch = new HashMap<>();
+        List<SensorMeasurement> accepted = new ArrayList<>();
+        for (SensorDataDTO sensorData : batch) {
+            if (sensorData.getDeviceId() == null || sensorData.getTimestamp() == null
+                    || sensorData.getMeasurementValue() == null) {
+                log.warn("[REPLICA {}] REJECTED malformed sensor data: {}", replicaId, sensorData);
+                continue;
+            }
 
-        if (deviceCache == null || deviceCache.getMaxConsumption() == null) {
-            return;
-        }
+            if (!knownDevices.contains(sensorData.getDeviceId())) {
+                log.warn("[REPLICA {}] REJECTED sensor data for unknown device: {}. Device not found in cache.",
+                        replicaId, sensorData.getDeviceId());
+                continue;
+            }
 
-        Double maxConsumption = deviceCache.getMaxConsumption();
-
-        if (totalConsumption > maxConsumption) {
-            log.warn("[REPLICA {}] OVERCONSUMPTION! Device {}: {} kWh > {} kWh (hour {})",
-                    replicaId, deviceId, totalConsumption, maxConsumption, hourTimestamp);
-
-            Map<String, Object> alert = new HashMap<>();
-            alert.put("type", "OVERCONSUMPTION");
-            alert.put("deviceId", deviceId.toString());
-            alert.put("deviceName", deviceCache.getDeviceName());
-            alert.put("currentValue", totalConsumption);
-            alert.put("maxConsumption", maxConsumption);
-            alert.put("timestamp", hourTimestamp.toString());
-            alert.put("message", String.format("Device %s exceeded maximum consumption in hour %s! Consumed: %.3f kWh, Max: %.3f kWh",
-                    deviceCache.getDeviceName(), hourTimestamp, totalConsumption, maxConsumption));
-
-            if (deviceCache.getUserId() != null) {
-                publishAlert(deviceCache.getUserId(), deviceId, alert);
-            } else {
-                log.warn("Cannot send alert: device {} has no assigned user", deviceId);
+            Set<LocalDateTime> seen = seenInBatch.computeIfAbsent(sensorData.getDeviceId(), id -> new HashSet<>());
+            if (!seen.add(sensorData.getTimestamp())
+                    || deduplicator.isKnownDuplicate(sensorData.getDeviceId(), sensorData.getTimestamp())) {
+                log.warn("[REPLICA {}] REJECTED duplicate: deviceId={}, timestamp={}",
+                        replicaId,
+                        sensorData.getDeviceId(),
+                        sensorData.getTimestamp());
+                continue;
             }
-        }
-    }
 
-    private void publishAlert(UUID userId, UUID deviceId, Map<String, Object> alertData) {
-        try {
-            WebSocketMessageDTO message = new WebSocketMessageDTO();
-            message.setType("ALERT");
-            message.setUserId(userId);
-            message.setDeviceId(deviceId);
-            message.setData(alertData);
-
-            rabbitTemplate.convertAndSend(
-                    RabbitMQConfig.WEBSOCKET_EXCHANGE,
-                    "alert",
-                    message
-            );
-
-            log.info("[REPLICA {}] Published ALERT: userId={}, deviceId={}", replicaId, userId, deviceId);
-        } catch (Exception e) {
-            log.error("[REPLICA {}] Failed to publish alert: {}", replicaId, e.getMessage(), e);
-        }
-    }
+            log.debug("[REPLICA {}] Accepted sensor data: deviceId={}, timestamp={}, value={} kWh",
+                    replicaId,
+                    sensorData.getDeviceId(),
+                    sensorData.getTimestamp(),
+                    sensorData.getMeasurementValue());
 
-    private void publishMeasurementUpdate(UUID deviceId, Map<String, Object> measurementData) {
-        try {
-            WebSocketMessageDTO message = new WebSocketMessageDTO();
-            message.setType("MEASUREMENT");
-            message.setDeviceId(deviceId);
-            message.setData(measurementData);
-
-            rabbitTemplate.convertAndSend(
-                    RabbitMQConfig.WEBSOCKET_EXCHANGE,
-                    "measurement",
-                    message
-            );
-
-            log.info("[REPLICA {}] Published MEASUREMENT: deviceId={}", replicaId, deviceId);
-        } catch (Exception e) {
-            log.error("[REPLICA {}] Failed to publish measurement: {}", replicaId, e.getMessage(), e);
+            accepted.add(new SensorMeasurement(
+                    sensorData.getDeviceId(),
+                    sensorData.getTimestamp(),
+                    sensorData.getMeasurementValue()
+            ));
         }
+        return accepted;
     }
 
     @RabbitListener(queues = RabbitMQConfig.MONITORING_SYNC_QUEUE)
@@ -327,8 +379,17 @@ public class MonitoringConsumerService {
             int deletedMeasurements = measurementRepository.deleteByDeviceId(deviceId);
             log.info("[REPLICA {}] Deleted {} measurements for device {}", replicaId, deletedMeasurements, deviceId);
 
+            int deletedBlocks = blockRepository.deleteByDeviceId(deviceId);
+            log.info("[REPLICA {}] Deleted {} cold blocks for device {}", replicaId, deletedBlocks, deviceId);
+
             int deletedAggregates = consumptionRepository.deleteByDeviceId(deviceId);
             log.info("[REPLICA {}] Deleted {} aggregates for device {}", replicaId, deletedAggregates, deviceId);
+
+            int deletedRollups = rollupBatchRepository.deleteByDeviceId(deviceId);
+            log.info("[REPLICA {}] Deleted {} rollups for device {}", replicaId, deletedRollups, deviceId);
+
+            deviceStatsBatchRepository.deleteByDeviceId(deviceId);
+            dayVersions.forgetDevice(deviceId);
         } catch (Exception e) {
             log.error("[REPLICA {}] Failed to handle device deletion: {}", replicaId, e.getMessage());
             throw e;
@@ -0,0 +1,60 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.config.RabbitMQConfig;
+import com.energy.monitoringservice.dto.ReplicaHeartbeatDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@Component
+public class ReplicaHeartbeatPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaHeartbeatPublisher.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final String ingestQueueName;
+    private final String instanceId = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    private volatile boolean leaving;
+
+    @Value("${monitoring.replica.id:1}")
+    private int replicaId;
+
+    @Autowired
+    public ReplicaHeartbeatPublisher(RabbitTemplate rabbitTemplate,
+                                     @Qualifier("ingestQueueName") String ingestQueueName) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.ingestQueueName = ingestQueueName;
+    }
+
+    @Scheduled(fixedDelayString = "${monitoring.replica.heartbeat-interval-ms:2000}")
+    public void publishHeartbeat() {
+        if (!leaving) {
+            send(ReplicaHeartbeatDTO.STATUS_UP);
+        }
+    }
+
+    @PreDestroy
+    public void leave() {
+        leaving = true;
+        send(ReplicaHeartbeatDTO.STATUS_LEAVING);
+        log.info("[REPLICA {}] Announced departure from the ingest ring", replicaId);
+    }
+
+    private void send(String status) {
+        try {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.REPLICA_HEARTBEAT_EXCHANGE, "",
+                    new ReplicaHeartbeatDTO(replicaId, instanceId, ingestQueueName, status, System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.warn("[REPLICA {}] Could not publish {} heartbeat: {}", replicaId, status, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.energy.monitoringservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Component
+public class StripedExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(StripedExecutor.class);
+
+    private ExecutorService[] stripes;
+
+    @Value("${monitoring.replica.id:1}")
+    private int replicaId;
+
+    @Value("${monitoring.ingest.stripes:0}")
+    private int stripeCount;
+
+    @PostConstruct
+    public void start() {
+        int count = stripeCount > 0 ? stripeCount : Runtime.getRuntime().availableProcessors();
+        stripes = new ExecutorService[count];
+        for (int i = 0; i < count; i++) {
+            String name = "ingest-stripe-" + replicaId + "-" + i;
+            stripes[i] = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, name));
+        }
+        log.info("[REPLICA {}] Ingest running on {} stripes", replicaId, count);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        for (ExecutorService stripe : stripes) {
+            stripe.shutdown();
+        }
+        for (ExecutorService stripe : stripes) {
+            stripe.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    public int stripeOf(Object key) {
+        return Math.floorMod(key.hashCode(), stripes.length);
+    }
+
+    public <T> CompletableFuture<T> submit(int stripe, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, stripes[stripe]);
+    }
+}
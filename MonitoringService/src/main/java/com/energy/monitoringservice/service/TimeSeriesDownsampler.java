@@ -0,0 +1,244 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.dto.ColumnarSeriesDTO;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+public abstract class TimeSeriesDownsampler {
+
+    public enum Mode {
+        LTTB,
+        MINMAX
+    }
+
+    private final long start;
+    private final long bucketSeconds;
+    private final int maxPoints;
+    private final long[] rawTimestamps;
+    private final double[] rawValues;
+    private long count;
+    private long[] timestamps = new long[64];
+    private double[] values = new double[64];
+    private int size;
+
+    private TimeSeriesDownsampler(long start, long end, int buckets, int maxPoints) {
+        this.start = start;
+        this.bucketSeconds = Math.max(1, (end - start + buckets - 1) / buckets);
+        this.maxPoints = maxPoints;
+        this.rawTimestamps = new long[maxPoints];
+        this.rawValues = new double[maxPoints];
+    }
+
+    public static TimeSeriesDownsampler create(Mode mode, long start, long end, int maxPoints) {
+        return mode == Mode.MINMAX
+                ? new MinMax(start, end, Math.max(1, maxPoints / 2), maxPoints)
+                : new Lttb(start, end, Math.max(1, maxPoints - 2), maxPoints);
+    }
+
+    public void add(long timestamp, double value) {
+        if (count < maxPoints) {
+            rawTimestamps[(int) count] = timestamp;
+            rawValues[(int) count] = value;
+        }
+        count++;
+        accept(timestamp, value);
+    }
+
+    public ColumnarSeriesDTO finish(UUID deviceId) {
+        if (count <= maxPoints) {
+            int points = (int) count;
+            return new ColumnarSeriesDTO(deviceId, Arrays.copyOf(rawTimestamps, points), Arrays.copyOf(rawValues, points));
+        }
+        flush();
+        return new ColumnarSeriesDTO(deviceId, Arrays.copyOf(timestamps, size), Arrays.copyOf(values, size));
+    }
+
+    protected abstract void accept(long timestamp, double value);
+
+    protected abstract void flush();
+
+    protected long bucketOf(long timestamp) {
+        return Math.floorDiv(timestamp - start, bucketSeconds);
+    }
+
+    protected void emit(long timestamp, double value) {
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        timestamps[size] = timestamp;
+        values[size] = value;
+        size++;
+    }
+
+    private static final class MinMax extends TimeSeriesDownsampler {
+
+        private long bucket = Long.MIN_VALUE;
+        private long minTimestamp;
+        private double minValue;
+        private long maxTimestamp;
+        private double maxValue;
+
+        MinMax(long start, long end, int buckets, int maxPoints) {
+            super(start, end, buckets, maxPoints);
+        }
+
+        @Override
+        protected void accept(long timestamp, double value) {
+            long index = bucketOf(timestamp);
+            if (index != bucket) {
+                flush();
+                bucket = index;
+                minTimestamp = maxTimestamp = timestamp;
+                minValue = maxValue = value;
+                return;
+            }
+            if (value < minValue) {
+                minValue = value;
+                minTimestamp = timestamp;
+            }
+            if (value > maxValue) {
+                maxValue = value;
+                maxTimestamp = timestamp;
+            }
+        }
+
+        @Override
+        protected void flush() {
+            if (bucket == Long.MIN_VALUE) {
+                return;
+            }
+            if (minTimestamp == maxTimestamp) {
+                emit(minTimestamp, minValue);
+            } else if (minTimestamp < maxTimestamp) {
+                emit(minTimestamp, minValue);
+                emit(maxTimestamp, maxValue);
+            } else {
+                emit(maxTimestamp, maxValue);
+                emit(minTimestamp, minValue);
+            }
+            bucket = Long.MIN_VALUE;
+        }
+    }
+
+    private static final class Lttb extends TimeSeriesDownsampler {
+
+        private boolean started;
+        private long selectedTimestamp;
+        private double selectedValue;
+        private Bucket pending;
+        private Bucket current;
+
+        Lttb(long start, long end, int buckets, int maxPoints) {
+            super(start, end, buckets, maxPoints);
+        }
+
+        @Override
+        protected void accept(long timestamp, double value) {
+            if (!started) {
+                started = true;
+                select(timestamp, value);
+                return;
+            }
+
+            long index = bucketOf(timestamp);
+            if (current == null || current.index != index) {
+                if (current != null) {
+                    if (pending != null) {
+                        selectFrom(pending, current.averageTimestamp(), current.averageValue());
+                    }
+                    pending = current;
+                }
+                current = new Bucket(index);
+            }
+            current.add(timestamp, value);
+        }
+
+        @Override
+        protected void flush() {
+            if (current == null) {
+                return;
+            }
+
+            long lastTimestamp = current.timestamps[current.size - 1];
+            double lastValue = current.values[current.size - 1];
+            current.removeLast();
+
+            if (pending != null) {
+                if (current.size > 0) {
+                    selectFrom(pending, current.averageTimestamp(), current.averageValue());
+                } else {
+                    selectFrom(pending, lastTimestamp, lastValue);
+                }
+            }
+            if (current.size > 0) {
+                selectFrom(current, lastTimestamp, lastValue);
+            }
+            select(lastTimestamp, lastValue);
+
+            pending = null;
+            current = null;
+        }
+
+        private void selectFrom(Bucket bucket, double nextTimestamp, double nextValue) {
+            int best = 0;
+            double bestArea = -1;
+            for (int i = 0; i < bucket.size; i++) {
+                double area = Math.abs((selectedTimestamp - nextTimestamp) * (bucket.values[i] - selectedValue)
+                        - (selectedTimestamp - bucket.timestamps[i]) * (nextValue - selectedValue));
+                if (area > bestArea) {
+                    bestArea = area;
+                    best = i;
+                }
+            }
+            select(bucket.timestamps[best], bucket.values[best]);
+        }
+
+        private void select(long timestamp, double value) {
+            selectedTimestamp = timestamp;
+            selectedValue = value;
+            emit(timestamp, value);
+        }
+    }
+
+    private static final class Bucket {
+
+        private final long index;
+        private long[] timestamps = new long[16];
+        private double[] values = new double[16];
+        private int size;
+        private double timestampSum;
+        private double valueSum;
+
+        Bucket(long index) {
+            this.index = index;
+        }
+
+        void add(long timestamp, double value) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            timestamps[size] = timestamp;
+            values[size] = value;
+            size++;
+            timestampSum += timestamp;
+            valueSum += value;
+        }
+
+        void removeLast() {
+            size--;
+            timestampSum -= timestamps[size];
+            valueSum -= values[size];
+        }
+
+        double averageTimestamp() {
+            return timestampSum / size;
+        }
+
+        double averageValue() {
+            return valueSum / size;
+        }
+    }
+}
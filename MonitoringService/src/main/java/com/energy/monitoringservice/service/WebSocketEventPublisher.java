@@ -0,0 +1,185 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.config.RabbitMQConfig;
+import com.energy.monitoringservice.dto.WebSocketMessageDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class WebSocketEventPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(WebSocketEventPublisher.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private BlockingQueue<PendingEvent> queue;
+    private Thread worker;
+    private volatile boolean running;
+
+    private Counter publishedCounter;
+    private Counter droppedCounter;
+    private Counter failedCounter;
+    private Timer batchTimer;
+
+    @Value("${monitoring.replica.id:1}")
+    private int replicaId;
+
+    @Value("${monitoring.websocket.publisher.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${monitoring.websocket.publisher.batch-size:100}")
+    private int batchSize;
+
+    @Value("${monitoring.websocket.publisher.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    @Value("${monitoring.websocket.publisher.max-attempts:3}")
+    private int maxAttempts;
+
+    @Autowired
+    public WebSocketEventPublisher(RabbitTemplate rabbitTemplate, MeterRegistry meterRegistry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        meterRegistry.gauge("monitoring.websocket.publisher.queue.size", queue, BlockingQueue::size);
+        meterRegistry.gauge("monitoring.websocket.publisher.queue.remaining", queue, BlockingQueue::remainingCapacity);
+        publishedCounter = meterRegistry.counter("monitoring.websocket.publisher.published");
+        droppedCounter = meterRegistry.counter("monitoring.websocket.publisher.dropped");
+        failedCounter = meterRegistry.counter("monitoring.websocket.publisher.failed");
+        batchTimer = meterRegistry.timer("monitoring.websocket.publisher.batch");
+
+        running = true;
+        worker = new Thread(this::drain, "websocket-publisher-" + replicaId);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.join(confirmTimeoutMs * 2);
+    }
+
+    public void publishAlert(UUID userId, UUID deviceId, Map<String, Object> alertData) {
+        WebSocketMessageDTO message = new WebSocketMessageDTO();
+        message.setType("ALERT");
+        message.setUserId(userId);
+        message.setDeviceId(deviceId);
+        message.setData(alertData);
+
+        enqueueAfterCommit(new PendingEvent("alert", message));
+    }
+
+    public void publishMeasurementUpdate(UUID deviceId, Map<String, Object> measurementData) {
+        WebSocketMessageDTO message = new WebSocketMessageDTO();
+        message.setType("MEASUREMENT");
+        message.setDeviceId(deviceId);
+        message.setData(measurementData);
+
+        enqueueAfterCommit(new PendingEvent("measurement", message));
+    }
+
+    private void enqueueAfterCommit(PendingEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(event);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(event);
+            }
+        });
+    }
+
+    private void enqueue(PendingEvent event) {
+        if (!queue.offer(event)) {
+            droppedCounter.increment();
+            log.warn("[REPLICA {}] WebSocket publish queue full ({}), dropped {} for device {}",
+                    replicaId, queueCapacity, event.message.getType(), event.message.getDeviceId());
+        }
+    }
+
+    private void drain() {
+        List<PendingEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingEvent first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                publishBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void publishBatch(List<PendingEvent> batch) throws InterruptedException {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                batchTimer.record(() -> rabbitTemplate.invoke(operations -> {
+                    for (PendingEvent event : batch) {
+                        operations.convertAndSend(RabbitMQConfig.WEBSOCKET_EXCHANGE, event.routingKey, event.message);
+                    }
+                    operations.waitForConfirmsOrDie(confirmTimeoutMs);
+                    return null;
+                }));
+                publishedCounter.increment(batch.size());
+                log.debug("[REPLICA {}] Published {} WebSocket events", replicaId, batch.size());
+                return;
+            } catch (Exception e) {
+                log.warn("[REPLICA {}] WebSocket publish of {} events failed (attempt {}/{}): {}",
+                        replicaId, batch.size(), attempt, maxAttempts, e.getMessage());
+                if (attempt < maxAttempts) {
+                    Thread.sleep(200L * attempt);
+                }
+            }
+        }
+
+        failedCounter.increment(batch.size());
+        log.error("[REPLICA {}] Gave up publishing {} WebSocket events", replicaId, batch.size());
+    }
+
+    private static final class PendingEvent {
+
+        private final String routingKey;
+        private final WebSocketMessageDTO message;
+
+        PendingEvent(String routingKey, WebSocketMessageDTO message) {
+            this.routingKey = routingKey;
+            this.message = message;
+        }
+    }
+}
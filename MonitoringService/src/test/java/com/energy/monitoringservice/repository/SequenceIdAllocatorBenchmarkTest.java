@@ -0,0 +1,141 @@
+package com.energy.monitoringservice.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@EnabledIfSystemProperty(named = "benchmark.jdbc-url", matches = ".+")
+class SequenceIdAllocatorBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SequenceIdAllocatorBenchmarkTest.class);
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 20_000);
+    private static final int BATCH_SIZE = 500;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource(System.getProperty("benchmark.jdbc-url"),
+                System.getProperty("benchmark.username", "postgres"),
+                System.getProperty("benchmark.password", "postgres"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        jdbcTemplate.execute("CREATE TEMP TABLE bench_identity (id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "device_id uuid NOT NULL, timestamp timestamp NOT NULL, measurement_value float8 NOT NULL)");
+        jdbcTemplate.execute("CREATE TEMP TABLE bench_batched (id bigint PRIMARY KEY, " +
+                "device_id uuid NOT NULL, timestamp timestamp NOT NULL, measurement_value float8 NOT NULL)");
+        jdbcTemplate.execute("CREATE TEMP TABLE bench_unnest (id bigint PRIMARY KEY, " +
+                "device_id uuid NOT NULL, timestamp timestamp NOT NULL, measurement_value float8 NOT NULL)");
+        jdbcTemplate.execute("CREATE TEMP SEQUENCE " + SequenceIdAllocator.SENSOR_MEASUREMENTS_SEQ +
+                " START WITH " + SequenceIdAllocator.ALLOCATION_SIZE + " INCREMENT BY " + SequenceIdAllocator.ALLOCATION_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void pooledIdsStayDistinctAcrossBatchedInserts() {
+        UUID deviceId = UUID.randomUUID();
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 0, 0);
+        SequenceIdAllocator allocator = new SequenceIdAllocator(jdbcTemplate);
+
+        long identityNanos = timed(() -> {
+            for (int i = 0; i < ROWS; i++) {
+                jdbcTemplate.queryForObject("INSERT INTO bench_identity (device_id, timestamp, measurement_value) " +
+                        "VALUES (?, ?, ?) RETURNING id", Long.class, deviceId, Timestamp.valueOf(start.plusSeconds(i)), 1.0);
+            }
+        });
+
+        long jdbcBatchNanos = timed(() -> {
+            for (int offset = 0; offset < ROWS; offset += BATCH_SIZE) {
+                int size = Math.min(BATCH_SIZE, ROWS - offset);
+                long[] ids = allocator.allocate(SequenceIdAllocator.SENSOR_MEASUREMENTS_SEQ, size);
+                int first = offset;
+                jdbcTemplate.batchUpdate("INSERT INTO bench_batched (id, device_id, timestamp, measurement_value) " +
+                        "VALUES (?, ?, ?, ?)", new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setLong(1, ids[i]);
+                        ps.setObject(2, deviceId);
+                        ps.setTimestamp(3, Timestamp.valueOf(start.plusSeconds(first + i)));
+                        ps.setDouble(4, 1.0);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return size;
+                    }
+                });
+            }
+        });
+
+        long unnestNanos = timed(() -> {
+            for (int offset = 0; offset < ROWS; offset += BATCH_SIZE) {
+                int size = Math.min(BATCH_SIZE, ROWS - offset);
+                long[] allocated = allocator.allocate(SequenceIdAllocator.SENSOR_MEASUREMENTS_SEQ, size);
+                Long[] ids = new Long[size];
+                UUID[] deviceIds = new UUID[size];
+                Timestamp[] timestamps = new Timestamp[size];
+                Double[] values = new Double[size];
+                for (int i = 0; i < size; i++) {
+                    ids[i] = allocated[i];
+                    deviceIds[i] = deviceId;
+                    timestamps[i] = Timestamp.valueOf(start.plusSeconds(offset + i));
+                    values[i] = 1.0;
+                }
+                jdbcTemplate.update(con -> {
+                    PreparedStatement ps = con.prepareStatement("INSERT INTO bench_unnest " +
+                            "SELECT * FROM unnest(?::int8[], ?::uuid[], ?::timestamp[], ?::float8[])");
+                    ps.setArray(1, con.createArrayOf("int8", ids));
+                    ps.setArray(2, con.createArrayOf("uuid", deviceIds));
+                    ps.setArray(3, con.createArrayOf("timestamp", timestamps));
+                    ps.setArray(4, con.createArrayOf("float8", values));
+                    return ps;
+                });
+            }
+        });
+
+        log.info("identity, one round trip per row: {} rows in {} ms ({} rows/s)",
+                ROWS, identityNanos / 1_000_000, rate(identityNanos));
+        log.info("pooled ids, JDBC batches of {}: {} rows in {} ms ({} rows/s)",
+                BATCH_SIZE, ROWS, jdbcBatchNanos / 1_000_000, rate(jdbcBatchNanos));
+        log.info("pooled ids, unnest batches of {}: {} rows in {} ms ({} rows/s)",
+                BATCH_SIZE, ROWS, unnestNanos / 1_000_000, rate(unnestNanos));
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT id) FROM (SELECT id FROM bench_batched UNION ALL SELECT id FROM bench_unnest) ids",
+                Long.class)).isEqualTo(2L * ROWS);
+    }
+
+    private long timed(Runnable work) {
+        long started = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> work.run());
+        return System.nanoTime() - started;
+    }
+
+    private static long rate(long nanos) {
+        return Math.round(ROWS * 1e9 / Math.max(nanos, 1));
+    }
+}
@@ -0,0 +1,71 @@
+package com.energy.monitoringservice.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SequenceIdAllocatorTest {
+
+    private static final String SEQUENCE = SequenceIdAllocator.SENSOR_MEASUREMENTS_SEQ;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SequenceIdAllocator allocator = new SequenceIdAllocator(jdbcTemplate);
+    private final AtomicLong sequenceValue = new AtomicLong(SequenceIdAllocator.ALLOCATION_SIZE);
+
+    @BeforeEach
+    void setUp() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any())).thenAnswer(invocation -> {
+            int blocks = invocation.getArgument(2);
+            List<Long> values = new ArrayList<>(blocks);
+            for (int i = 0; i < blocks; i++) {
+                values.add(sequenceValue.addAndGet(SequenceIdAllocator.ALLOCATION_SIZE));
+            }
+            return values;
+        });
+    }
+
+    @Test
+    void largeBatchTakesOneRoundTripInsteadOfOnePerRow() {
+        long[] ids = allocator.allocate(SEQUENCE, 10_000);
+
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(Long.class), eq(200));
+        assertThat(ids).containsExactly(LongStream.rangeClosed(51, 10_050).toArray());
+    }
+
+    @Test
+    void smallBatchesAreServedFromThePooledBlock() {
+        long[] first = allocator.allocate(SEQUENCE, 20);
+        long[] second = allocator.allocate(SEQUENCE, 30);
+        long[] third = allocator.allocate(SEQUENCE, 1);
+
+        verify(jdbcTemplate, times(2)).queryForList(anyString(), eq(Long.class), eq(1));
+        assertThat(first).containsExactly(LongStream.rangeClosed(51, 70).toArray());
+        assertThat(second).containsExactly(LongStream.rangeClosed(71, 100).toArray());
+        assertThat(third).containsExactly(101);
+    }
+
+    @Test
+    void batchSpanningThePoolRemainderUsesTheRemainderFirst() {
+        allocator.allocate(SEQUENCE, 45);
+        long[] ids = allocator.allocate(SEQUENCE, 60);
+
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(Long.class), eq(2));
+        assertThat(ids).containsExactly(LongStream.rangeClosed(96, 155).toArray());
+        assertThat(Arrays.stream(ids).distinct().count()).isEqualTo(60);
+    }
+}
@@ -0,0 +1,86 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.entity.MeasurementBlock;
+import com.energy.monitoringservice.entity.SensorMeasurement;
+import com.energy.monitoringservice.repository.MeasurementBlockBatchRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CompactedDayGuardTest {
+
+    private final MeasurementBlockBatchRepository blockRepository = mock(MeasurementBlockBatchRepository.class);
+    private final CompactedDayGuard guard = new CompactedDayGuard(blockRepository);
+
+    private final UUID deviceId = UUID.randomUUID();
+    private final LocalDate compactedDay = LocalDate.now().minusDays(3);
+
+    @Test
+    void redeliveredMeasurementOfCompactedDayIsDropped() {
+        LocalDateTime first = compactedDay.atTime(10, 0);
+        LocalDateTime second = compactedDay.atTime(10, 10);
+        when(blockRepository.lockAndFindBlocks(Map.of(deviceId, Set.of(compactedDay))))
+                .thenReturn(List.of(block(first, second)));
+
+        SensorMeasurement redelivered = new SensorMeasurement(deviceId, second, 0.4);
+        SensorMeasurement late = new SensorMeasurement(deviceId, compactedDay.atTime(10, 5), 0.2);
+
+        List<SensorMeasurement> remaining = guard.withoutCompacted(List.of(redelivered, late));
+
+        assertThat(remaining).containsExactly(late);
+    }
+
+    @Test
+    void redeliveringTheSameBatchTwiceStoresNothingNew() {
+        LocalDateTime timestamp = compactedDay.atTime(23, 59, 50);
+        when(blockRepository.lockAndFindBlocks(any())).thenReturn(List.of(block(timestamp)));
+
+        List<SensorMeasurement> batch = List.of(new SensorMeasurement(deviceId, timestamp, 1.0));
+
+        assertThat(guard.withoutCompacted(batch)).isEmpty();
+        assertThat(guard.withoutCompacted(batch)).isEmpty();
+    }
+
+    @Test
+    void daysWithoutBlocksAreKept() {
+        when(blockRepository.lockAndFindBlocks(any())).thenReturn(List.of());
+
+        List<SensorMeasurement> batch = List.of(new SensorMeasurement(deviceId, compactedDay.atTime(1, 0), 1.0));
+
+        assertThat(guard.withoutCompacted(batch)).isEqualTo(batch);
+    }
+
+    @Test
+    void todaysMeasurementsSkipTheBlockLookup() {
+        List<SensorMeasurement> batch = List.of(new SensorMeasurement(deviceId, LocalDateTime.now(), 1.0));
+
+        assertThat(guard.withoutCompacted(batch)).isEqualTo(batch);
+        verify(blockRepository, never()).lockAndFindBlocks(any());
+    }
+
+    private MeasurementBlock block(LocalDateTime... timestamps) {
+        long[] micros = new long[timestamps.length];
+        double[] values = new double[timestamps.length];
+        for (int i = 0; i < timestamps.length; i++) {
+            micros[i] = MeasurementBlockCodec.toMicros(timestamps[i]);
+            values[i] = i;
+        }
+        MeasurementBlock block = new MeasurementBlock();
+        block.setDeviceId(deviceId);
+        block.setDay(compactedDay);
+        block.setData(MeasurementBlockCodec.encode(micros, values, timestamps.length));
+        return block;
+    }
+}
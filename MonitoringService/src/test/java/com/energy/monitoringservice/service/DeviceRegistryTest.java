@@ -0,0 +1,139 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.dto.SyncMessageDTO;
+import com.energy.monitoringservice.entity.DeviceCache;
+import com.energy.monitoringservice.repository.DeviceCacheRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeviceRegistryTest {
+
+    private final DeviceCacheRepository deviceCacheRepository = mock(DeviceCacheRepository.class);
+    private final DeviceRegistry registry = new DeviceRegistry(deviceCacheRepository,
+            mock(MeasurementDeduplicator.class), mock(HourlyAggregator.class));
+
+    private final UUID deviceId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(registry, "tombstoneTtlSeconds", 3600L);
+        ReflectionTestUtils.setField(registry, "missTtlSeconds", 30L);
+        ReflectionTestUtils.setField(registry, "maxMisses", 2);
+    }
+
+    @Test
+    void unknownDeviceIsLoadedFromTheDatabase() {
+        when(deviceCacheRepository.findAllById(any())).thenReturn(List.of(device()));
+
+        assertThat(registry.findKnown(Set.of(deviceId))).containsExactly(deviceId);
+        assertThat(registry.find(deviceId)).isPresent();
+    }
+
+    @Test
+    void deletedDeviceIsNotReloadedFromTheDatabase() {
+        registry.handleSyncBroadcast(event("DEVICE_CREATED"));
+        registry.handleSyncBroadcast(event("DEVICE_DELETED"));
+
+        assertThat(registry.findKnown(Set.of(deviceId))).isEmpty();
+        assertThat(registry.find(deviceId)).isEmpty();
+        verify(deviceCacheRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void deleteDuringTheDatabaseFallbackWins() {
+        when(deviceCacheRepository.findAllById(any())).thenAnswer(invocation -> {
+            registry.handleSyncBroadcast(event("DEVICE_DELETED"));
+            return List.of(device());
+        });
+
+        assertThat(registry.findKnown(Set.of(deviceId))).isEmpty();
+        assertThat(registry.find(deviceId)).isEmpty();
+    }
+
+    @Test
+    void recreatedDeviceIsKnownAgain() {
+        registry.handleSyncBroadcast(event("DEVICE_DELETED"));
+        registry.handleSyncBroadcast(event("DEVICE_CREATED"));
+
+        assertThat(registry.findKnown(Set.of(deviceId))).containsExactly(deviceId);
+    }
+
+    @Test
+    void unknownDeviceIsLookedUpOnceWhileTheMissIsCached() {
+        when(deviceCacheRepository.findAllById(any())).thenReturn(List.of());
+
+        assertThat(registry.findKnown(Set.of(deviceId))).isEmpty();
+        assertThat(registry.findKnown(Set.of(deviceId))).isEmpty();
+
+        verify(deviceCacheRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    void expiredMissIsLookedUpAgain() {
+        ReflectionTestUtils.setField(registry, "missTtlSeconds", 0L);
+        when(deviceCacheRepository.findAllById(any())).thenReturn(List.of());
+
+        registry.findKnown(Set.of(deviceId));
+        registry.findKnown(Set.of(deviceId));
+
+        verify(deviceCacheRepository, times(2)).findAllById(any());
+    }
+
+    @Test
+    void createdEventClearsACachedMiss() {
+        when(deviceCacheRepository.findAllById(any())).thenReturn(List.of());
+        registry.findKnown(Set.of(deviceId));
+
+        registry.handleSyncBroadcast(event("DEVICE_CREATED"));
+
+        assertThat(registry.findKnown(Set.of(deviceId))).containsExactly(deviceId);
+    }
+
+    @Test
+    void missesBeyondTheLimitAreNotCached() {
+        when(deviceCacheRepository.findAllById(any())).thenReturn(List.of());
+        Set<UUID> unknown = Set.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        registry.findKnown(unknown);
+        registry.findKnown(unknown);
+
+        verify(deviceCacheRepository, times(2)).findAllById(any());
+    }
+
+    @Test
+    void expiredTombstoneFallsBackToTheDatabase() {
+        ReflectionTestUtils.setField(registry, "tombstoneTtlSeconds", 0L);
+        when(deviceCacheRepository.findAllById(any())).thenReturn(List.of());
+        registry.handleSyncBroadcast(event("DEVICE_DELETED"));
+        registry.purgeExpired();
+
+        assertThat(registry.findKnown(Set.of(deviceId))).isEmpty();
+        verify(deviceCacheRepository, times(1)).findAllById(any());
+    }
+
+    private DeviceCache device() {
+        return new DeviceCache(deviceId, "meter", 5.0);
+    }
+
+    private SyncMessageDTO event(String eventType) {
+        SyncMessageDTO message = new SyncMessageDTO();
+        message.setEventType(eventType);
+        message.setDeviceId(deviceId);
+        message.setDeviceName("meter");
+        message.setMaxConsumption(5.0);
+        return message;
+    }
+}
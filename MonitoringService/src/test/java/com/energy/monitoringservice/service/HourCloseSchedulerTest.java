@@ -0,0 +1,113 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.dto.HourlyAggregateDTO;
+import com.energy.monitoringservice.entity.DeviceCache;
+import com.energy.monitoringservice.repository.ConsumptionRollupBatchRepository;
+import com.energy.monitoringservice.repository.DeviceStatsBatchRepository;
+import com.energy.monitoringservice.repository.HourlyConsumptionBatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HourCloseSchedulerTest {
+
+    private final HourlyAggregator hourlyAggregator = mock(HourlyAggregator.class);
+    private final HourlyConsumptionBatchRepository hourlyBatchRepository = mock(HourlyConsumptionBatchRepository.class);
+    private final DeviceStatsBatchRepository deviceStatsBatchRepository = mock(DeviceStatsBatchRepository.class);
+    private final DeviceRegistry deviceRegistry = mock(DeviceRegistry.class);
+    private final WebSocketEventPublisher eventPublisher = mock(WebSocketEventPublisher.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    private final HourCloseScheduler scheduler = new HourCloseScheduler(hourlyAggregator, hourlyBatchRepository,
+            mock(ConsumptionRollupBatchRepository.class), deviceStatsBatchRepository, deviceRegistry, eventPublisher,
+            mock(DailyConsumptionCache.class), mock(DeviceDayVersions.class), transactionTemplate);
+
+    private final UUID deviceId = UUID.randomUUID();
+    private final UUID userId = UUID.randomUUID();
+    private final LocalDateTime hour = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        DeviceCache device = new DeviceCache(deviceId, "heater", 10.0);
+        device.setUserId(userId);
+        when(deviceRegistry.find(deviceId)).thenReturn(Optional.of(device));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void firstCloseAboveTheLimitRaisesOneAlert() {
+        HourlyAggregateDTO aggregate = aggregate(12.0, 12);
+        close(aggregate, true, null);
+
+        verify(eventPublisher, times(1)).publishAlert(eq(userId), eq(deviceId), anyMap());
+        verify(eventPublisher, times(1)).publishMeasurementUpdate(eq(deviceId), anyMap());
+    }
+
+    @Test
+    void lateCorrectionOfAnHourAlreadyAboveTheLimitDoesNotAlertAgain() {
+        HourlyAggregateDTO aggregate = aggregate(13.0, 13);
+        close(aggregate, true, aggregate(12.0, 12));
+
+        verify(eventPublisher, never()).publishAlert(any(), any(), anyMap());
+        verify(eventPublisher, times(1)).publishMeasurementUpdate(eq(deviceId), anyMap());
+    }
+
+    @Test
+    void correctionThatNewlyCrossesTheLimitAlerts() {
+        HourlyAggregateDTO aggregate = aggregate(11.0, 11);
+        close(aggregate, true, aggregate(8.0, 8));
+
+        verify(eventPublisher, times(1)).publishAlert(eq(userId), eq(deviceId), anyMap());
+    }
+
+    @Test
+    void aggregateRejectedByTheUpsertIsNeitherAlertedNorBroadcastNorRecorded() {
+        HourlyAggregateDTO aggregate = aggregate(11.0, 3);
+        close(aggregate, false, aggregate(14.0, 14));
+
+        verify(eventPublisher, never()).publishAlert(any(), any(), anyMap());
+        verify(eventPublisher, never()).publishMeasurementUpdate(any(), anyMap());
+        verify(deviceStatsBatchRepository).recordClosedHours(List.of());
+        verify(hourlyAggregator).markClosed(List.of(aggregate));
+    }
+
+    @Test
+    void unchangedRewriteOfAClosedHourIsNotBroadcast() {
+        HourlyAggregateDTO aggregate = aggregate(12.0, 12);
+        close(aggregate, true, aggregate(12.0, 12));
+
+        verify(eventPublisher, never()).publishAlert(any(), any(), anyMap());
+        verify(eventPublisher, never()).publishMeasurementUpdate(any(), anyMap());
+    }
+
+    private void close(HourlyAggregateDTO aggregate, boolean applied, HourlyAggregateDTO previous) {
+        when(hourlyAggregator.collectDueHours(any(), any())).thenReturn(List.of(aggregate));
+        when(hourlyBatchRepository.upsertAll(List.of(aggregate))).thenReturn(new HourlyConsumptionBatchRepository.UpsertResult(
+                applied ? List.of(aggregate) : List.of(),
+                List.of(),
+                previous == null ? Map.of() : Map.of(deviceId, Map.of(hour, previous))));
+
+        scheduler.closeDueHours();
+    }
+
+    private HourlyAggregateDTO aggregate(double total, int count) {
+        return new HourlyAggregateDTO(deviceId, hour, total, count, 0.5, 1.5);
+    }
+}
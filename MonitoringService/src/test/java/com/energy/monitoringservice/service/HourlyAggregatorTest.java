@@ -0,0 +1,98 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.dto.HourlyAggregateDTO;
+import com.energy.monitoringservice.entity.SensorMeasurement;
+import com.energy.monitoringservice.repository.MeasurementBlockBatchRepository;
+import com.energy.monitoringservice.repository.SensorMeasurementBatchRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HourlyAggregatorTest {
+
+    private final SensorMeasurementBatchRepository measurementBatchRepository = mock(SensorMeasurementBatchRepository.class);
+    private final HourlyAggregator aggregator = new HourlyAggregator(measurementBatchRepository,
+            mock(MeasurementBlockBatchRepository.class));
+
+    private final UUID deviceId = UUID.randomUUID();
+    private final LocalDateTime hour = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+    @Test
+    void deviceSpilledAndReturnedWithinTheHourIsReseededWithTheSpillTargetsReadings() {
+        storedInHour(hour, 2);
+        aggregator.record(List.of(measurement(hour), measurement(hour.plusMinutes(5))));
+
+        aggregator.handOff(List.of(deviceId));
+        storedInHour(hour, 6);
+        aggregator.record(List.of(measurement(hour.plusMinutes(25))));
+        aggregator.record(List.of(measurement(hour.plusMinutes(30))));
+
+        List<HourlyAggregateDTO> due = aggregator.collectDueHours(Duration.ZERO, Duration.ZERO);
+
+        assertThat(due).singleElement().satisfies(aggregate -> {
+            assertThat(aggregate.getHour()).isEqualTo(hour);
+            assertThat(aggregate.getMeasurementCount()).isEqualTo(7);
+            assertThat(aggregate.getTotalConsumption()).isEqualTo(7.0);
+        });
+        verify(measurementBatchRepository, times(2)).aggregate(deviceId, hour, hour.plusHours(1));
+    }
+
+    @Test
+    void deviceThatStaysOnTheReplicaIsNotReseeded() {
+        storedInHour(hour, 1);
+        aggregator.record(List.of(measurement(hour)));
+        aggregator.record(List.of(measurement(hour.plusMinutes(5))));
+
+        List<HourlyAggregateDTO> due = aggregator.collectDueHours(Duration.ZERO, Duration.ZERO);
+
+        assertThat(due).singleElement().extracting(HourlyAggregateDTO::getMeasurementCount).isEqualTo(2);
+        verify(measurementBatchRepository, times(1)).aggregate(deviceId, hour, hour.plusHours(1));
+    }
+
+    @Test
+    void hourStartedWhileTheDeviceWasAwayIsSeededWhenItReturns() {
+        storedInHour(hour, 1);
+        aggregator.record(List.of(measurement(hour.plusMinutes(50))));
+        aggregator.handOff(List.of(deviceId));
+
+        LocalDateTime next = hour.plusHours(1);
+        storedInHour(next, 4);
+        aggregator.record(List.of(measurement(next.plusMinutes(40))));
+
+        List<HourlyAggregateDTO> due = aggregator.collectDueHours(Duration.ZERO, Duration.ZERO);
+
+        assertThat(due).filteredOn(aggregate -> aggregate.getHour().equals(next))
+                .singleElement().extracting(HourlyAggregateDTO::getMeasurementCount).isEqualTo(4);
+    }
+
+    @Test
+    void handedOffHourThatNeverReturnsIsClosedFromTheDatabase() {
+        storedInHour(hour, 2);
+        aggregator.record(List.of(measurement(hour), measurement(hour.plusMinutes(5))));
+        aggregator.handOff(List.of(deviceId));
+        storedInHour(hour, 9);
+
+        List<HourlyAggregateDTO> due = aggregator.collectDueHours(Duration.ZERO, Duration.ZERO);
+
+        assertThat(due).singleElement().extracting(HourlyAggregateDTO::getMeasurementCount).isEqualTo(9);
+    }
+
+    private void storedInHour(LocalDateTime start, int count) {
+        when(measurementBatchRepository.aggregate(deviceId, start, start.plusHours(1)))
+                .thenReturn(Optional.of(new HourlyAggregateDTO(deviceId, start, count, count, 1.0, 1.0)));
+    }
+
+    private SensorMeasurement measurement(LocalDateTime timestamp) {
+        return new SensorMeasurement(deviceId, timestamp, 1.0);
+    }
+}
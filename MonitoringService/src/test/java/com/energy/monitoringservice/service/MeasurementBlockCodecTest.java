@@ -0,0 +1,119 @@
+package com.energy.monitoringservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MeasurementBlockCodecTest {
+
+    private static final long START = MeasurementBlockCodec.toMicros(LocalDateTime.of(2024, 3, 1, 0, 0));
+    private static final long MINUTE = 60_000_000L;
+
+    @Test
+    void emptyAndSinglePointBlocksRoundTrip() {
+        assertRoundTrip(new long[0], new double[0]);
+        assertRoundTrip(new long[]{START}, new double[]{0.42});
+    }
+
+    @Test
+    void nanAndInfinitiesKeepTheirExactBits() {
+        double otherNaN = Double.longBitsToDouble(0x7ff8_0000_0000_0123L);
+        assertRoundTrip(
+                regular(7),
+                new double[]{Double.NaN, 1.5, otherNaN, Double.NaN, Double.POSITIVE_INFINITY,
+                        Double.NEGATIVE_INFINITY, Double.MIN_VALUE});
+    }
+
+    @Test
+    void negativeValuesAndSignedZeroRoundTrip() {
+        assertRoundTrip(
+                regular(6),
+                new double[]{-0.25, 0.0, -0.0, -1234.5678, Double.MAX_VALUE, -Double.MAX_VALUE});
+    }
+
+    @Test
+    void repeatedValuesRoundTripAndStayCompact() {
+        long[] timestamps = regular(1_000);
+        double[] values = new double[1_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i < 500 ? 0.125 : 3.75;
+        }
+
+        byte[] encoded = assertRoundTrip(timestamps, values);
+
+        assertThat(encoded.length).isLessThan(1_000 / 4 + 64);
+    }
+
+    @Test
+    void irregularDeltasRoundTripThroughEveryDeltaOfDeltaWidth() {
+        long[] timestamps = {
+                START,
+                START + MINUTE,
+                START + 2 * MINUTE,
+                START + 2 * MINUTE + 1,
+                START + 2 * MINUTE + 200,
+                START + 2 * MINUTE + 2_500,
+                START + 5 * MINUTE,
+                START + 5 * MINUTE + 1,
+                START + 40L * 24 * 60 * MINUTE,
+                START + 40L * 24 * 60 * MINUTE + 7
+        };
+        double[] values = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+
+        assertRoundTrip(timestamps, values);
+    }
+
+    @Test
+    void randomBlocksRoundTrip() {
+        Random random = new Random(7);
+        for (int run = 0; run < 200; run++) {
+            int count = 1 + random.nextInt(300);
+            long[] timestamps = new long[count];
+            double[] values = new double[count];
+            long timestamp = START;
+            for (int i = 0; i < count; i++) {
+                timestamp += random.nextInt(4) == 0 ? random.nextInt(1_000_000_000) : MINUTE;
+                timestamps[i] = timestamp;
+                values[i] = random.nextInt(5) == 0 && i > 0 ? values[i - 1] : (random.nextDouble() - 0.5) * 100;
+            }
+            assertRoundTrip(timestamps, values);
+        }
+    }
+
+    @Test
+    void microsConversionRoundTripsBeforeAndAfterTheEpoch() {
+        LocalDateTime[] timestamps = {
+                LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000),
+                LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000),
+                LocalDateTime.of(1970, 1, 1, 0, 0)
+        };
+        for (LocalDateTime timestamp : timestamps) {
+            assertThat(MeasurementBlockCodec.fromMicros(MeasurementBlockCodec.toMicros(timestamp))).isEqualTo(timestamp);
+        }
+    }
+
+    private static long[] regular(int count) {
+        long[] timestamps = new long[count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = START + i * MINUTE;
+        }
+        return timestamps;
+    }
+
+    private static byte[] assertRoundTrip(long[] timestamps, double[] values) {
+        byte[] encoded = MeasurementBlockCodec.encode(timestamps, values, timestamps.length);
+        MeasurementBlockCodec.Block block = MeasurementBlockCodec.decode(encoded);
+
+        assertThat(block.size()).isEqualTo(timestamps.length);
+        for (int i = 0; i < timestamps.length; i++) {
+            assertThat(block.timestampAt(i)).as("timestamp %d", i).isEqualTo(timestamps[i]);
+            assertThat(Double.doubleToRawLongBits(block.valueAt(i)))
+                    .as("value %d", i)
+                    .isEqualTo(Double.doubleToRawLongBits(values[i]));
+        }
+        return encoded;
+    }
+}
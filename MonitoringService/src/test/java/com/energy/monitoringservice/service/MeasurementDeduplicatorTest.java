@@ -0,0 +1,112 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.entity.SensorMeasurement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MeasurementDeduplicatorTest {
+
+    private final MeasurementDeduplicator deduplicator = new MeasurementDeduplicator();
+    private final UUID deviceId = UUID.randomUUID();
+    private final LocalDateTime start = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(deduplicator, "windowSize", 64);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void recordedTimestampsAreKnownDuplicates() {
+        deduplicator.recordAccepted(List.of(measurement(start), measurement(start.plusMinutes(10))));
+
+        assertThat(deduplicator.isKnownDuplicate(deviceId, start)).isTrue();
+        assertThat(deduplicator.isKnownDuplicate(deviceId, start.plusMinutes(10))).isTrue();
+        assertThat(deduplicator.isKnownDuplicate(deviceId, start.plusMinutes(5))).isFalse();
+        assertThat(deduplicator.isKnownDuplicate(deviceId, start.plusMinutes(20))).isFalse();
+        assertThat(deduplicator.isKnownDuplicate(UUID.randomUUID(), start)).isFalse();
+    }
+
+    @Test
+    void oldestTimestampIsEvictedOnceTheWindowOf64IsFull() {
+        List<SensorMeasurement> measurements = new ArrayList<>();
+        for (int i = 0; i < 65; i++) {
+            measurements.add(measurement(start.plusMinutes(i)));
+        }
+        deduplicator.recordAccepted(measurements.subList(0, 64));
+
+        assertThat(deduplicator.isKnownDuplicate(deviceId, start)).isTrue();
+
+        deduplicator.recordAccepted(measurements.subList(64, 65));
+
+        assertThat(deduplicator.isKnownDuplicate(deviceId, start)).isFalse();
+        for (int i = 1; i < 65; i++) {
+            assertThat(deduplicator.isKnownDuplicate(deviceId, start.plusMinutes(i))).as("minute %d", i).isTrue();
+        }
+    }
+
+    @Test
+    void lateTimestampEvictedFromTheWindowIsNoLongerKnown() {
+        deduplicator.recordAccepted(List.of(measurement(start.plusHours(2))));
+        List<SensorMeasurement> later = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            later.add(measurement(start.plusHours(3).plusMinutes(i)));
+        }
+        deduplicator.recordAccepted(later);
+
+        assertThat(deduplicator.isKnownDuplicate(deviceId, start.plusHours(2))).isFalse();
+    }
+
+    @Test
+    void measurementsAreRememberedOnlyAfterTheTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        deduplicator.recordAccepted(List.of(measurement(start)));
+
+        assertThat(deduplicator.isKnownDuplicate(deviceId, start)).isFalse();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(deduplicator.isKnownDuplicate(deviceId, start)).isTrue();
+    }
+
+    @Test
+    void measurementsOfARolledBackTransactionAreNotRemembered() {
+        TransactionSynchronizationManager.initSynchronization();
+        deduplicator.recordAccepted(List.of(measurement(start)));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(deduplicator.isKnownDuplicate(deviceId, start)).isFalse();
+    }
+
+    @Test
+    void forgottenDeviceStartsWithAnEmptyWindow() {
+        deduplicator.recordAccepted(List.of(measurement(start)));
+        deduplicator.forget(deviceId);
+
+        assertThat(deduplicator.isKnownDuplicate(deviceId, start)).isFalse();
+    }
+
+    private SensorMeasurement measurement(LocalDateTime timestamp) {
+        return new SensorMeasurement(deviceId, timestamp, 1.0);
+    }
+}
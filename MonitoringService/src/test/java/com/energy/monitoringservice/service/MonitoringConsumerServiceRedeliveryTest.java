@@ -0,0 +1,148 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.dto.SensorDataDTO;
+import com.energy.monitoringservice.entity.SensorMeasurement;
+import com.energy.monitoringservice.repository.ConsumptionRollupBatchRepository;
+import com.energy.monitoringservice.repository.DeviceCacheRepository;
+import com.energy.monitoringservice.repository.DeviceStatsBatchRepository;
+import com.energy.monitoringservice.repository.HourlyConsumptionRepository;
+import com.energy.monitoringservice.repository.MeasurementBlockBatchRepository;
+import com.energy.monitoringservice.repository.SensorMeasurementBatchRepository;
+import com.energy.monitoringservice.repository.SensorMeasurementRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MonitoringConsumerServiceRedeliveryTest {
+
+    private final Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+    private final SensorMeasurementBatchRepository measurementBatchRepository = mock(SensorMeasurementBatchRepository.class);
+    private final DeviceRegistry deviceRegistry = mock(DeviceRegistry.class);
+    private final HourlyAggregator hourlyAggregator = mock(HourlyAggregator.class);
+    private final CompactedDayGuard compactedDayGuard = mock(CompactedDayGuard.class);
+    private final StripedExecutor stripedExecutor = new StripedExecutor();
+
+    private final Set<String> stored = new HashSet<>();
+    private final List<String> aggregated = new ArrayList<>();
+    private final AtomicBoolean failSecondDevice = new AtomicBoolean(true);
+
+    private MonitoringConsumerService service;
+    private UUID firstDevice;
+    private UUID secondDevice;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(stripedExecutor, "stripeCount", 2);
+        stripedExecutor.start();
+
+        firstDevice = UUID.randomUUID();
+        do {
+            secondDevice = UUID.randomUUID();
+        } while (stripedExecutor.stripeOf(secondDevice) == stripedExecutor.stripeOf(firstDevice));
+
+        when(deviceRegistry.findKnown(any())).thenAnswer(invocation -> new HashSet<>(invocation.<Collection<UUID>>getArgument(0)));
+        when(compactedDayGuard.withoutCompacted(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(measurementBatchRepository.insertIgnoringDuplicates(anyList())).thenAnswer(invocation -> {
+            List<SensorMeasurement> measurements = invocation.getArgument(0);
+            if (measurements.get(0).getDeviceId().equals(secondDevice) && failSecondDevice.getAndSet(false)) {
+                throw new IllegalStateException("connection reset");
+            }
+            List<SensorMeasurement> inserted = new ArrayList<>();
+            synchronized (stored) {
+                for (SensorMeasurement measurement : measurements) {
+                    if (stored.add(key(measurement))) {
+                        inserted.add(measurement);
+                    }
+                }
+            }
+            return inserted;
+        });
+        doAnswer(invocation -> {
+            List<SensorMeasurement> saved = invocation.getArgument(0);
+            synchronized (aggregated) {
+                saved.forEach(measurement -> aggregated.add(key(measurement)));
+            }
+            return null;
+        }).when(hourlyAggregator).record(anyList());
+
+        service = new MonitoringConsumerService(
+                mock(HourlyConsumptionRepository.class),
+                mock(ConsumptionRollupBatchRepository.class),
+                mock(SensorMeasurementRepository.class),
+                measurementBatchRepository,
+                mock(MeasurementBlockBatchRepository.class),
+                mock(DeviceCacheRepository.class),
+                mock(DeviceStatsBatchRepository.class),
+                deviceRegistry,
+                hourlyAggregator,
+                mock(MeasurementDeduplicator.class),
+                mock(MeasurementPartitionManager.class),
+                mock(DeviceDayVersions.class),
+                compactedDayGuard,
+                stripedExecutor,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                mock(RabbitTemplate.class),
+                converter);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        stripedExecutor.stop();
+    }
+
+    @Test
+    void redeliveryAfterPartialStripeCommitCountsEveryReadingOnce() {
+        LocalDateTime hour = LocalDateTime.now().withMinute(0).withSecond(0).withNano(0);
+        List<Message> batch = List.of(
+                message(firstDevice, hour, 0.5),
+                message(firstDevice, hour.plusMinutes(10), 0.7),
+                message(secondDevice, hour, 1.5),
+                message(secondDevice, hour.plusMinutes(10), 1.1));
+
+        assertThatThrownBy(() -> service.processSensorData(batch)).isInstanceOf(CompletionException.class);
+        assertThat(aggregated).hasSize(2);
+
+        service.processSensorData(batch);
+        service.processSensorData(batch);
+
+        assertThat(stored).hasSize(4);
+        assertThat(aggregated).hasSize(4).doesNotHaveDuplicates();
+    }
+
+    private Message message(UUID deviceId, LocalDateTime timestamp, double value) {
+        SensorDataDTO sensorData = new SensorDataDTO();
+        sensorData.setDeviceId(deviceId);
+        sensorData.setTimestamp(timestamp);
+        sensorData.setMeasurementValue(value);
+        return converter.toMessage(sensorData, new MessageProperties());
+    }
+
+    private static String key(SensorMeasurement measurement) {
+        return measurement.getDeviceId() + "@" + measurement.getTimestamp();
+    }
+}
@@ -0,0 +1,98 @@
+package com.energy.monitoringservice.service;
+
+import com.energy.monitoringservice.dto.ColumnarSeriesDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeSeriesDownsamplerTest {
+
+    private final UUID deviceId = UUID.randomUUID();
+
+    @Test
+    void minMaxKeepsTheExtremesOfEachBucketSplitExactlyAtTheBoundary() {
+        TimeSeriesDownsampler downsampler = TimeSeriesDownsampler.create(TimeSeriesDownsampler.Mode.MINMAX, 0, 100, 4);
+        for (long t = 0; t < 100; t++) {
+            downsampler.add(t, t);
+        }
+
+        ColumnarSeriesDTO series = downsampler.finish(deviceId);
+
+        assertThat(series.getTimestamps()).containsExactly(0, 49, 50, 99);
+        assertThat(series.getValues()).containsExactly(0, 49, 50, 99);
+    }
+
+    @Test
+    void minMaxEmitsMaximumFirstWhenItComesFirst() {
+        TimeSeriesDownsampler downsampler = TimeSeriesDownsampler.create(TimeSeriesDownsampler.Mode.MINMAX, 0, 100, 2);
+        for (long t = 0; t < 100; t++) {
+            downsampler.add(t, t == 10 ? 9.0 : t == 80 ? -3.0 : 1.0);
+        }
+
+        ColumnarSeriesDTO series = downsampler.finish(deviceId);
+
+        assertThat(series.getTimestamps()).containsExactly(10, 80);
+        assertThat(series.getValues()).containsExactly(9.0, -3.0);
+    }
+
+    @Test
+    void lttbKeepsFirstAndLastAndOnePointPerBucket() {
+        TimeSeriesDownsampler downsampler = TimeSeriesDownsampler.create(TimeSeriesDownsampler.Mode.LTTB, 0, 1_000, 12);
+        for (long t = 0; t < 1_000; t++) {
+            downsampler.add(t, Math.sin(t / 25.0));
+        }
+
+        ColumnarSeriesDTO series = downsampler.finish(deviceId);
+        long[] timestamps = series.getTimestamps();
+
+        assertThat(timestamps).hasSize(12);
+        assertThat(timestamps[0]).isZero();
+        assertThat(timestamps[11]).isEqualTo(999);
+        assertThat(Arrays.stream(timestamps, 1, 11).map(t -> t / 100).toArray())
+                .containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+    }
+
+    @Test
+    void lttbKeepsASpikeInAFlatSeries() {
+        TimeSeriesDownsampler downsampler = TimeSeriesDownsampler.create(TimeSeriesDownsampler.Mode.LTTB, 0, 1_000, 10);
+        for (long t = 0; t < 1_000; t++) {
+            downsampler.add(t, t == 437 ? 50.0 : 1.0);
+        }
+
+        ColumnarSeriesDTO series = downsampler.finish(deviceId);
+
+        assertThat(series.getTimestamps()).contains(437);
+        assertThat(series.getValues()).contains(50.0);
+    }
+
+    @Test
+    void inputSmallerThanTheTargetIsReturnedUnchangedEvenWhenItSharesABucket() {
+        long[] timestamps = {0, 1, 2, 3, 500};
+        double[] values = {4.0, -1.0, 7.5, 2.0, 3.0};
+
+        for (TimeSeriesDownsampler.Mode mode : TimeSeriesDownsampler.Mode.values()) {
+            TimeSeriesDownsampler downsampler = TimeSeriesDownsampler.create(mode, 0, 1_000, 10);
+            for (int i = 0; i < timestamps.length; i++) {
+                downsampler.add(timestamps[i], values[i]);
+            }
+
+            ColumnarSeriesDTO series = downsampler.finish(deviceId);
+
+            assertThat(series.getTimestamps()).as(mode.name()).containsExactly(timestamps);
+            assertThat(series.getValues()).as(mode.name()).containsExactly(values);
+        }
+    }
+
+    @Test
+    void emptyInputGivesAnEmptySeries() {
+        for (TimeSeriesDownsampler.Mode mode : TimeSeriesDownsampler.Mode.values()) {
+            ColumnarSeriesDTO series = TimeSeriesDownsampler.create(mode, 0, 1_000, 10).finish(deviceId);
+
+            assertThat(series.getTimestamps()).isEmpty();
+            assertThat(series.getValues()).isEmpty();
+        }
+    }
+}